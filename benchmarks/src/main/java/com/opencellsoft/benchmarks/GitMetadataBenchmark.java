@@ -0,0 +1,80 @@
+package com.opencellsoft.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.opencellsoft.utils.GitMetadataService;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Resolution of the last commit of every script of a repository.
+ *
+ * @author mohammed stitane
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GitMetadataBenchmark {
+
+    @Param({"200"})
+    private int scripts;
+
+    @Param({"100"})
+    private int commits;
+
+    private File repository;
+
+    private List<File> files;
+
+    @Setup
+    public void setup() throws Exception {
+        repository = Files.createTempDirectory("git-benchmark").toFile();
+        files = Samples.writeScripts(new File(repository, "src/main/java/bench"), scripts, 20);
+        try (Git git = Git.init().setDirectory(repository).call()) {
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("initial").setAuthor(new PersonIdent("bench", "bench@opencellsoft.com")).call();
+            // every commit touches one script, the oldest scripts are only in the first commit
+            for (int i = 0; i < commits; i++) {
+                File file = files.get(files.size() - 1 - (i % files.size()));
+                Files.write(file.toPath(), ("// change " + i + "\n").getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+                git.add().addFilepattern(".").call();
+                git.commit().setMessage("change " + i).setAuthor(new PersonIdent("author" + (i % 7), "bench@opencellsoft.com")).call();
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Samples.delete(repository);
+    }
+
+    @Benchmark
+    public GitMetadataService.CommitInfo resolveAll() throws IOException {
+        try (GitMetadataService service = GitMetadataService.open(repository)) {
+            service.resolve(files);
+            return service.getLastCommit(files.get(0));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.opencellsoft.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.opencellsoft.dto.ScriptInstance;
+
+/**
+ * Representative Opencell scripts used by the benchmarks.
+ *
+ * @author mohammed stitane
+ */
+final class Samples {
+
+    private Samples() {
+    }
+
+    /**
+     * @param index     the index of the script, used in its name
+     * @param bodyLines the number of statements in the script body
+     * @return the java source of a script
+     */
+    static String script(int index, int bodyLines) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("/*\n * Copyright (C) Opencell.\n */\n");
+        sb.append("package org.meveo.service.script.bench;\n\n");
+        sb.append("import java.util.Map;\n");
+        sb.append("import org.meveo.admin.exception.BusinessException;\n");
+        sb.append("import org.meveo.service.script.Script;\n\n");
+        sb.append("/**\n * Benchmark script number ").append(index).append(".\n");
+        sb.append(" * <p>\n * Updates the subscriptions of the customers.\n *\n * @author bench\n */\n");
+        sb.append("@SuppressWarnings(\"unchecked\")\n");
+        sb.append("public class BenchScript").append(index).append(" extends Script {\n\n");
+        sb.append("    @Override\n");
+        sb.append("    public void execute(Map<String, Object> context) throws BusinessException {\n");
+        for (int i = 0; i < bodyLines; i++) {
+            sb.append("        context.put(\"key").append(i).append("\", \"value {").append(i).append("}\"); // line ").append(i).append('\n');
+        }
+        sb.append("    }\n}\n");
+        return sb.toString();
+    }
+
+    /**
+     * @return the script instance of a generated script
+     */
+    static ScriptInstance scriptInstance(int index, int bodyLines) {
+        ScriptInstance dto = new ScriptInstance();
+        dto.setCode("org.meveo.service.script.bench.BenchScript" + index);
+        dto.setDescription("Benchmark script number " + index + ".\tLast updated By bench on 2020-01-01T00:00");
+        dto.setScript(script(index, bodyLines));
+        return dto;
+    }
+
+    /**
+     * Write generated java scripts into a directory.
+     *
+     * @return the files written
+     */
+    static List<File> writeScripts(File dir, int count, int bodyLines) throws IOException {
+        Files.createDirectories(dir.toPath());
+        List<File> files = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            File file = new File(dir, "BenchScript" + i + ".java");
+            Files.write(file.toPath(), script(i, bodyLines).getBytes(StandardCharsets.UTF_8));
+            files.add(file);
+        }
+        return files;
+    }
+
+    static void delete(File dir) throws IOException {
+        if (dir == null || !dir.exists()) {
+            return;
+        }
+        Files.walkFileTree(dir.toPath(), new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path d, IOException exc) throws IOException {
+                Files.delete(d);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
@@ -0,0 +1,58 @@
+package com.opencellsoft.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.opencellsoft.dto.ScriptInstance;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Serialization of a {@link ScriptInstance} to JSON, with a shared writer and
+ * with a new mapper per script.
+ *
+ * @author mohammed stitane
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScriptSerializationBenchmark {
+
+    @Param({"20", "500"})
+    private int bodyLines;
+
+    private ScriptInstance script;
+
+    private ObjectWriter writer;
+
+    @Setup
+    public void setup() {
+        script = Samples.scriptInstance(1, bodyLines);
+        writer = new ObjectMapper().writerFor(ScriptInstance.class);
+    }
+
+    @Benchmark
+    public byte[] sharedWriter() throws JsonProcessingException {
+        return writer.writeValueAsBytes(script);
+    }
+
+    @Benchmark
+    public byte[] newMapper() throws JsonProcessingException {
+        return new ObjectMapper().writeValueAsBytes(script);
+    }
+}
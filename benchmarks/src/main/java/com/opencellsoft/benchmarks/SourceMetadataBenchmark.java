@@ -0,0 +1,47 @@
+package com.opencellsoft.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import com.opencellsoft.utils.SourceMetadata;
+import com.opencellsoft.utils.SourceMetadataExtractor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Extraction of the script code and description from a java source.
+ *
+ * @author mohammed stitane
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SourceMetadataBenchmark {
+
+    @Param({"20", "500"})
+    private int bodyLines;
+
+    private String source;
+
+    @Setup
+    public void setup() {
+        source = Samples.script(1, bodyLines);
+    }
+
+    @Benchmark
+    public SourceMetadata extract() {
+        return SourceMetadataExtractor.extract(source);
+    }
+}
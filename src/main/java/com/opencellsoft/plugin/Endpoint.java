@@ -0,0 +1,84 @@
+package com.opencellsoft.plugin;
+
+import java.net.URI;
+import java.util.Map;
+
+/**
+ * {@link Endpoint} class
+ * <p>
+ * A node or tenant the scripts are deployed to, configured in the
+ * <code>endpoints</code> parameter of {@link RestPlugin}:
+ *
+ * <pre>
+ * &lt;endpoint&gt;
+ *     &lt;name&gt;node1&lt;/name&gt;
+ *     &lt;url&gt;http://node1:8080&lt;/url&gt;
+ *     &lt;headers&gt;
+ *         &lt;Authorization&gt;Basic ...&lt;/Authorization&gt;
+ *     &lt;/headers&gt;
+ * &lt;/endpoint&gt;
+ * </pre>
+ *
+ * @author mohammed stitane
+ */
+public class Endpoint {
+
+    /**
+     * The name of the endpoint in the build output, and the sub directory of
+     * its saved responses. Defaults to the host of the url, followed by
+     * <code>_</code> and the port if the url has one.
+     */
+    private String name;
+
+    /**
+     * The base URL of the endpoint, the <code>resource</code> is added to it.
+     */
+    private URI url;
+
+    /**
+     * Headers added to the requests of this endpoint, overriding the
+     * <code>headers</code> of the plugin.
+     */
+    private Map<String, String> headers;
+
+    public Endpoint() {
+    }
+
+    public Endpoint(String name, URI url, Map<String, String> headers) {
+        this.name = name;
+        this.url = url;
+        this.headers = headers;
+    }
+
+    public String getName() {
+        if (name == null && url != null && url.getHost() != null) {
+            return url.getPort() < 0 ? url.getHost() : url.getHost() + "_" + url.getPort();
+        }
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public URI getUrl() {
+        return url;
+    }
+
+    public void setUrl(URI url) {
+        this.url = url;
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public void setHeaders(Map<String, String> headers) {
+        this.headers = headers;
+    }
+
+    @Override
+    public String toString() {
+        return getName() + " (" + url + ")";
+    }
+}
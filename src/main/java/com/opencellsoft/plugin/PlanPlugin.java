@@ -0,0 +1,78 @@
+package com.opencellsoft.plugin;
+
+import com.opencellsoft.utils.ScriptPlan;
+
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * {@link PlanPlugin} class
+ * <p>
+ * Compare the scripts to deploy with the script instances of the server,
+ * fetched by code with concurrent GET requests, and log which scripts would
+ * be created, updated or are unchanged. Nothing is submitted unless
+ * <code>apply</code> is set, in which case only the scripts to create or
+ * update are submitted.
+ * <p>
+ * Every parameter of the <code>rest-request</code> goal applies.
+ *
+ * @author mohammed stitane
+ */
+@Mojo(name = "plan", threadSafe = true)
+public class PlanPlugin extends RestPlugin {
+
+    /**
+     * The resource returning a script instance by code, relative to the
+     * endpoint.
+     * <p>
+     * Defaults to <code>/opencell/api/rest/scriptInstance</code>
+     */
+    @Parameter(property = "planResource", defaultValue = "/opencell/api/rest/scriptInstance")
+    private String planResource = "/opencell/api/rest/scriptInstance";
+
+    /**
+     * The query param of the <code>planResource</code> holding the code of the
+     * script.
+     * <p>
+     * Defaults to <code>scriptInstanceCode</code>
+     */
+    @Parameter(property = "planCodeParam", defaultValue = "scriptInstanceCode")
+    private String planCodeParam = "scriptInstanceCode";
+
+    /**
+     * Submit the scripts to create or update once the plan is logged.
+     * <p>
+     * Defaults to <code>false</code>
+     */
+    @Parameter(property = "apply", defaultValue = "false")
+    private boolean apply;
+
+    @Override
+    protected ScriptPlan getPlan() {
+        return new ScriptPlan(getPlanResource(), getPlanCodeParam(), isApply());
+    }
+
+    public String getPlanResource() {
+        return planResource;
+    }
+
+    public void setPlanResource(String planResource) {
+        this.planResource = planResource;
+    }
+
+    public String getPlanCodeParam() {
+        return planCodeParam;
+    }
+
+    public void setPlanCodeParam(String planCodeParam) {
+        this.planCodeParam = planCodeParam;
+    }
+
+    public boolean isApply() {
+        return apply;
+    }
+
+    public void setApply(boolean apply) {
+        this.apply = apply;
+    }
+}
@@ -1,4 +1,3 @@
-
 /*
  * Licensed to the Apache Software Foundation (ASF) under one
  * or more contributor license agreements.  See the NOTICE file
@@ -19,8 +18,9 @@
  */
 package com.opencellsoft.plugin;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -28,18 +28,27 @@ import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import javax.ws.rs.ProcessingException;
 import javax.ws.rs.client.Client;
-import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.Invocation;
 import javax.ws.rs.client.WebTarget;
@@ -48,11 +57,35 @@ import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status.Family;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.common.base.Strings;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.opencellsoft.dto.ScriptInstance;
+import com.opencellsoft.utils.BatchRequest;
+import com.opencellsoft.utils.BufferedLog;
+import com.opencellsoft.utils.CircuitBreaker;
+import com.opencellsoft.utils.ConcurrencyLimiter;
+import com.opencellsoft.utils.ConvertedScripts;
+import com.opencellsoft.utils.ClientFactory;
+import com.opencellsoft.utils.ClientPool;
+import com.opencellsoft.utils.DependencyGraph;
+import com.opencellsoft.utils.DeployJournal;
+import com.opencellsoft.utils.DeployManifest;
+import com.opencellsoft.utils.DeployReport;
+import com.opencellsoft.utils.Digests;
 import com.opencellsoft.utils.ErrorInfo;
+import com.opencellsoft.utils.FileContent;
 import com.opencellsoft.utils.FileErrorInfo;
 import com.opencellsoft.utils.FileSetTransformer;
+import com.opencellsoft.utils.OrderedTasks;
+import com.opencellsoft.utils.OutputIndex;
+import com.opencellsoft.utils.RequestMetrics;
+import com.opencellsoft.utils.GitMetadataService;
+import com.opencellsoft.utils.ResponseBodies;
+import com.opencellsoft.utils.RetryPolicy;
+import com.opencellsoft.utils.ScriptCache;
+import com.opencellsoft.utils.ScriptPlan;
+import com.opencellsoft.utils.SourceMetadata;
+import com.opencellsoft.utils.SourceMetadataExtractor;
+import com.opencellsoft.utils.TokenBucket;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.maven.execution.MavenSession;
@@ -61,6 +94,7 @@ import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecution;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
@@ -68,14 +102,6 @@ import org.apache.maven.project.MavenProject;
 import org.apache.maven.project.MavenProjectHelper;
 import org.apache.maven.settings.Settings;
 import org.codehaus.plexus.components.io.filemappers.FileMapper;
-import org.eclipse.jgit.api.Git;
-import org.eclipse.jgit.lib.Ref;
-import org.eclipse.jgit.lib.Repository;
-import org.eclipse.jgit.revwalk.RevCommit;
-import org.eclipse.jgit.revwalk.RevTree;
-import org.eclipse.jgit.revwalk.RevWalk;
-import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
-import org.eclipse.jgit.treewalk.TreeWalk;
 import org.sonatype.plexus.build.incremental.BuildContext;
 
 /**
@@ -85,14 +111,18 @@ import org.sonatype.plexus.build.incremental.BuildContext;
  * This plugin is meant to provide an easy way to interface to REST services via
  * the POST operation to send data files to the REST URL and retrieve (and
  * store) the results.
+ * <p>
+ * The mojo is thread safe: the state of an execution is kept in its own
+ * instance, relative paths are resolved against the <code>basedir</code> of
+ * its module, and the executions of a parallel build (<code>-T</code>) share
+ * their HTTP client through the {@link ClientPool}.
  *
  * @author mohammed stitane
  */
-@Mojo(name = "rest-request")
+@Mojo(name = "rest-request", threadSafe = true)
 public class RestPlugin extends AbstractMojo {
 
-    private static final String PACKAGE_PATTERN = "package([\\s)+\\w\\\\.]+)";
-    private static final String CLASSNAME_PATTERN = "(?<=\\n|\\A)(?:public\\s)?(class|interface|enum)\\s([^\\n\\s]*)";
+    private static final ObjectWriter SCRIPT_WRITER = new ObjectMapper().writerFor(ScriptInstance.class);
 
     @Parameter(defaultValue = "${session}", readonly = true)
     private MavenSession session;
@@ -315,6 +345,478 @@ public class RestPlugin extends AbstractMojo {
     @Parameter(property = "javaFile")
     private String javaFile;
 
+    /**
+     * The maximum number of REST requests in flight at the same time.
+     * <p>
+     * Files are submitted by a bounded pool of this many workers; results and
+     * log messages are still reported in the order of the files to process.
+     * <p>
+     * Defaults to <code>1</code> (one request at a time)
+     */
+    @Parameter(property = "maxConcurrentRequests", defaultValue = "1")
+    private int maxConcurrentRequests = 1;
+
+    /**
+     * A <code>boolean</code> that indicate if the number of requests in
+     * flight to each endpoint is adapted to the server latency, up to
+     * <code>maxConcurrentRequests</code>.
+     * <p>
+     * The limit starts at 1 and grows while the latency stays flat, is halved
+     * when the server answers <code>429</code> or <code>503</code> or the
+     * request fails, and is reduced when the p95 latency rises above
+     * <code>latencyTolerance</code> times its average.
+     * <p>
+     * Defaults to <code>false</code> (<code>maxConcurrentRequests</code>
+     * requests in flight)
+     */
+    @Parameter(property = "adaptiveConcurrency", defaultValue = "false")
+    private boolean adaptiveConcurrency;
+
+    /**
+     * The ratio of the p95 latency of the last requests to its average above
+     * which the adaptive concurrency limit is reduced.
+     * <p>
+     * Defaults to <code>2.0</code>
+     */
+    @Parameter(property = "latencyTolerance", defaultValue = "2.0")
+    private double latencyTolerance = 2.0;
+
+    /**
+     * The maximum number of requests sent per second to each endpoint,
+     * retries included, shared by all the workers. Up to one second of
+     * requests can be sent in a burst. <code>0</code> means no limit.
+     * <p>
+     * Defaults to <code>0</code>
+     */
+    @Parameter(property = "requestsPerSecond", defaultValue = "0")
+    private double requestsPerSecond;
+
+    /**
+     * The maximum number of bytes of request bodies, before compression, sent
+     * per second to each endpoint, retries included, shared by all the
+     * workers. Up to one second of bytes can be sent in a burst, and a bigger
+     * request is delayed until it fits the rate. <code>0</code> means no
+     * limit.
+     * <p>
+     * Defaults to <code>0</code>
+     */
+    @Parameter(property = "bytesPerSecond", defaultValue = "0")
+    private long bytesPerSecond;
+
+    /**
+     * The number of threads converting java files to scripts.
+     * <p>
+     * <code>0</code> uses one thread per available processor.
+     * <p>
+     * Defaults to <code>0</code>
+     */
+    @Parameter(property = "conversionThreads", defaultValue = "0")
+    private int conversionThreads;
+
+    /**
+     * A <code>boolean</code> that indicate if the converted scripts are cached
+     * in the <code>scriptCacheDir</code>.
+     * <p>
+     * A script is cached by the hash of the version of the plugin, of the last
+     * commit of its java source, and of the content of the source, so it is
+     * shared by the branches and commits where the source did not change. A
+     * cached script is not converted again, by any module or build sharing
+     * the cache, and the git history is only walked once per commit checked
+     * out.
+     * <p>
+     * Defaults to <code>false</code>
+     */
+    @Parameter(property = "scriptCache", defaultValue = "false")
+    private boolean scriptCache;
+
+    /**
+     * Directory of the cache of the converted scripts.
+     * <p>
+     * Defaults to <code>${user.home}/.m2/rest-maven-plugin/script-cache</code>
+     */
+    @Parameter(property = "scriptCacheDir", defaultValue = "${user.home}/.m2/rest-maven-plugin/script-cache")
+    private File scriptCacheDir;
+
+    /**
+     * The maximum size in megabytes of the cache of the converted scripts.
+     * The least recently used scripts are evicted when the cache is larger.
+     * <p>
+     * Defaults to <code>256</code>
+     */
+    @Parameter(property = "scriptCacheMaxSize", defaultValue = "256")
+    private long scriptCacheMaxSize = 256;
+
+    /**
+     * The Jersey connector used to send the REST requests.
+     * <p>
+     * One of <code>default</code> (JDK <code>HttpURLConnection</code>),
+     * <code>apache</code>, <code>grizzly</code>, <code>jetty</code> or
+     * <code>http2</code>. The <code>apache</code>, <code>grizzly</code> and
+     * <code>jetty</code> connectors keep a pool of connections which are
+     * reused between requests. The <code>http2</code> connector, on the JDK 11
+     * <code>HttpClient</code>, multiplexes the requests over a single HTTP/2
+     * connection per server and requires Java 11.
+     * <p>
+     * Defaults to <code>default</code>
+     */
+    @Parameter(property = "connector", defaultValue = ClientFactory.DEFAULT_CONNECTOR)
+    private String connector = ClientFactory.DEFAULT_CONNECTOR;
+
+    /**
+     * The maximum number of pooled connections per route (host and port).
+     * <p>
+     * Not used by the <code>default</code> connector, which relies on the
+     * <code>http.maxConnections</code> system property.
+     * <p>
+     * Defaults to <code>20</code>
+     */
+    @Parameter(property = "maxConnections", defaultValue = "20")
+    private int maxConnections = 20;
+
+    /**
+     * A <code>boolean</code> that indicate if connections are kept alive and
+     * reused between requests.
+     * <p>
+     * Only the <code>apache</code>, <code>grizzly</code> and
+     * <code>jetty</code> connectors can disable it: the <code>default</code>
+     * and <code>http2</code> connectors, on the JDK clients, always keep the
+     * connections alive and fail when it is disabled.
+     * <p>
+     * Defaults to <code>true</code>
+     */
+    @Parameter(property = "keepAlive", defaultValue = "true")
+    private boolean keepAlive = true;
+
+    /**
+     * Connect timeout in milliseconds, <code>0</code> means no timeout.
+     * <p>
+     * Defaults to <code>0</code>
+     */
+    @Parameter(property = "connectTimeout", defaultValue = "0")
+    private int connectTimeout;
+
+    /**
+     * Read timeout in milliseconds, <code>0</code> means no timeout.
+     * <p>
+     * Defaults to <code>0</code>
+     */
+    @Parameter(property = "readTimeout", defaultValue = "0")
+    private int readTimeout;
+
+    /**
+     * Socket send and receive buffer size in bytes for the <code>apache</code>
+     * connector, and request and response buffer size for the
+     * <code>jetty</code> connector. <code>0</code> keeps the system default.
+     * <p>
+     * Defaults to <code>0</code>
+     */
+    @Parameter(property = "socketBufferSize", defaultValue = "0")
+    private int socketBufferSize;
+
+    /**
+     * The compression of the request bodies: <code>none</code>,
+     * <code>gzip</code> or <code>deflate</code>. Compressed bodies are
+     * streamed with a <code>Content-Encoding</code> header, and compressed
+     * responses are accepted.
+     * <p>
+     * Defaults to <code>none</code>
+     */
+    @Parameter(property = "requestCompression", defaultValue = ClientFactory.NO_COMPRESSION)
+    private String requestCompression = ClientFactory.NO_COMPRESSION;
+
+    /**
+     * A <code>boolean</code> that indicate if only the changes since the last
+     * run are processed.
+     * <p>
+     * When enabled, the hash of every java source and of every submitted file
+     * is kept in the <code>manifestFile</code>: java sources whose content did
+     * not change are not converted again, and files already submitted with
+     * success to the same endpoint with the same content are not sent again.
+     * <p>
+     * Defaults to <code>false</code>
+     */
+    @Parameter(property = "incremental", defaultValue = "false")
+    private boolean incremental;
+
+    /**
+     * File where the state of the incremental mode is stored.
+     * <p>
+     * Defaults to
+     * <code>${project.build.directory}/rest-maven-plugin/manifest.json</code>
+     */
+    @Parameter(defaultValue = "${project.build.directory}/rest-maven-plugin/manifest.json", property = "manifestFile")
+    private File manifestFile;
+
+    /**
+     * A <code>boolean</code> that indicate if a deployment resumes the
+     * previous one.
+     * <p>
+     * Every response is appended to the <code>journalFile</code> as soon as it
+     * is received. When enabled, the files acknowledged by the previous
+     * deployment, with the same content and by the same endpoint, are not
+     * sent again, so an interrupted deployment goes on where it stopped.
+     * Otherwise the journal is cleared.
+     * <p>
+     * Defaults to <code>false</code>
+     */
+    @Parameter(property = "resume", defaultValue = "false")
+    private boolean resume;
+
+    /**
+     * File where the responses of the deployment are journaled.
+     * <p>
+     * Defaults to
+     * <code>${project.build.directory}/rest-maven-plugin/journal.log</code>
+     */
+    @Parameter(defaultValue = "${project.build.directory}/rest-maven-plugin/journal.log", property = "journalFile")
+    private File journalFile;
+
+    /**
+     * The minimum time in milliseconds between two syncs of the journal to the
+     * disk. The responses received in between are synced together.
+     * <p>
+     * Defaults to <code>200</code>
+     */
+    @Parameter(property = "journalSyncInterval", defaultValue = "200")
+    private long journalSyncInterval = 200;
+
+    /**
+     * The maximum number of files sent in a single request.
+     * <p>
+     * When greater than <code>1</code>, the files are grouped and each group
+     * is sent as one JSON array of the file contents to the
+     * <code>batchResource</code>. The per-item results of the response are
+     * reported for each file: an item fails when its <code>status</code> is
+     * neither <code>SUCCESS</code> nor a 2xx code. Every file of the group
+     * fails when the response <code>status</code> or
+     * <code>actionStatus.status</code> is <code>FAIL</code>. If the response
+     * holds no per-item results, its status applies to every file of the
+     * group.
+     * <p>
+     * Defaults to <code>1</code> (one request per file)
+     */
+    @Parameter(property = "batchSize", defaultValue = "1")
+    private int batchSize = 1;
+
+    /**
+     * The maximum size in bytes of the files sent in a single request, when
+     * <code>batchSize</code> is greater than <code>1</code>. A bigger file is
+     * sent alone. <code>0</code> means no limit.
+     * <p>
+     * Defaults to <code>10485760</code> (10 MB)
+     */
+    @Parameter(property = "batchMaxBytes", defaultValue = "10485760")
+    private long batchMaxBytes = 10485760L;
+
+    /**
+     * The resource accepting batches, relative to the endpoint, when
+     * <code>batchSize</code> is greater than <code>1</code>.
+     * <p>
+     * Defaults to the <code>resource</code>
+     */
+    @Parameter(property = "batchResource")
+    private String batchResource;
+
+    /**
+     * The maximum number of times a request is sent again after a transport
+     * failure or a response with one of the <code>retryStatuses</code>.
+     * <p>
+     * Defaults to <code>3</code>
+     */
+    @Parameter(property = "maxRetries", defaultValue = "3")
+    private int maxRetries = 3;
+
+    /**
+     * The HTTP statuses of the responses which are retried.
+     * <p>
+     * Defaults to <code>429, 502, 503, 504</code>
+     */
+    @Parameter(property = "retryStatuses")
+    private List<Integer> retryStatuses = new ArrayList<>(Arrays.asList(429, 502, 503, 504));
+
+    /**
+     * The wait before the first retry in milliseconds, doubled for each
+     * following retry, with a random jitter. A <code>Retry-After</code>
+     * header of the response takes precedence.
+     * <p>
+     * Defaults to <code>500</code>
+     */
+    @Parameter(property = "retryBackoff", defaultValue = "500")
+    private long retryBackoff = 500;
+
+    /**
+     * The maximum wait before a retry in milliseconds, including the
+     * <code>Retry-After</code> header of the response.
+     * <p>
+     * Defaults to <code>30000</code>
+     */
+    @Parameter(property = "retryMaxBackoff", defaultValue = "30000")
+    private long retryMaxBackoff = 30000;
+
+    /**
+     * The number of consecutive failed attempts after which no request is
+     * sent to the endpoint for <code>circuitBreakerOpenTime</code>
+     * milliseconds, the remaining files failing immediately. Transport
+     * failures and responses with one of the <code>retryStatuses</code> are
+     * failures. <code>0</code> disables the circuit breaker.
+     * <p>
+     * Defaults to <code>10</code>
+     */
+    @Parameter(property = "circuitBreakerThreshold", defaultValue = "10")
+    private int circuitBreakerThreshold = 10;
+
+    /**
+     * How long the circuit breaker stays open, in milliseconds, before a
+     * trial request is sent to the endpoint.
+     * <p>
+     * Defaults to <code>30000</code>
+     */
+    @Parameter(property = "circuitBreakerOpenTime", defaultValue = "30000")
+    private long circuitBreakerOpenTime = 30000;
+
+    /**
+     * The endpoints the files are deployed to, concurrently, instead of the
+     * single <code>endpoint</code>. Each endpoint has a <code>url</code>, an
+     * optional <code>name</code> and optional <code>headers</code> which
+     * override the <code>headers</code> of the plugin. The
+     * <code>resource</code>, <code>queryParams</code> and
+     * <code>batchResource</code> apply to every endpoint, and the responses
+     * of each endpoint are saved in a sub directory of the output dir named
+     * after it.
+     */
+    @Parameter(property = "endpoints")
+    private List<Endpoint> endpoints;
+
+    /**
+     * The number of <code>endpoints</code> all the files must be deployed to
+     * for the build to succeed. <code>0</code> requires every endpoint.
+     * <p>
+     * Defaults to <code>0</code>
+     */
+    @Parameter(property = "quorum", defaultValue = "0")
+    private int quorum;
+
+    /**
+     * A <code>boolean</code> that indicate if the saved responses are gzip
+     * compressed, with a <code>.gz</code> suffix.
+     * <p>
+     * Defaults to <code>false</code>
+     */
+    @Parameter(property = "compressResponse", defaultValue = "false")
+    private boolean compressResponse;
+
+    /**
+     * The maximum number of bytes of an error response body reported in the
+     * build output.
+     * <p>
+     * Defaults to <code>4096</code>
+     */
+    @Parameter(property = "errorBodyLimit", defaultValue = "4096")
+    private int errorBodyLimit = 4096;
+
+    /**
+     * A <code>boolean</code> that indicate if the scripts converted from java
+     * files are submitted from memory, instead of the files of the
+     * <code>filesets</code>.
+     * <p>
+     * Each converted script is serialized straight into its request, so it is
+     * not written to the output dir, scanned and read back. Scripts skipped
+     * by the incremental mode because they did not change are read from the
+     * output dir.
+     * <p>
+     * Defaults to <code>false</code>
+     */
+    @Parameter(property = "inMemory", defaultValue = "false")
+    private boolean inMemory;
+
+    /**
+     * A <code>boolean</code> that indicate if the scripts submitted from
+     * memory are still written to the output dir.
+     * <p>
+     * Defaults to <code>true</code>
+     */
+    @Parameter(property = "mirrorToDisk", defaultValue = "true")
+    private boolean mirrorToDisk = true;
+
+    /**
+     * A <code>boolean</code> that indicate if the scripts converted from java
+     * files are deployed after the scripts they depend on.
+     * <p>
+     * A script depends on another one when it imports it, or uses its simple
+     * name from the same package or a package imported on demand. The
+     * scripts are deployed in layers, each one after the layers it depends
+     * on, with <code>maxConcurrentRequests</code> requests in flight within
+     * a layer. A script is not sent when a script it depends on failed.
+     * <p>
+     * The dependencies are found from the names used in the source, comments
+     * and local names included, so a script may wait for a script it does not
+     * use. This is why the ordering is opt-in.
+     * <p>
+     * Defaults to <code>false</code>
+     */
+    @Parameter(property = "dependencyOrder", defaultValue = "false")
+    private boolean dependencyOrder;
+
+    /**
+     * Directory of the deploy reports: <code>deploy-report.json</code> with
+     * the timings, sizes, retries and status of every request and their
+     * percentiles, and <code>TEST-rest-deploy.xml</code> in the JUnit format.
+     * <p>
+     * Defaults to <code>${project.build.directory}/rest-reports</code>
+     */
+    @Parameter(defaultValue = "${project.build.directory}/rest-reports", property = "reportDir")
+    private File reportDir;
+
+    private DeployManifest manifest;
+
+    private DeployJournal journal;
+
+    private DeployReport report;
+
+    private FileContent fileContent = FileContent.DISK;
+
+    private GitMetadataService gitMetadata;
+
+    private ScriptCache convertedScripts;
+
+    private final Map<File, String> cacheKeys = new ConcurrentHashMap<>();
+
+    private RetryPolicy retryPolicy;
+
+    private final Map<File, SourceMetadata> sources = new ConcurrentHashMap<>();
+
+    private DependencyGraph dependencies;
+
+    /**
+     * An endpoint with the resources and the state used to deploy to it.
+     */
+    private static final class Destination {
+        private final String name;
+        private final WebTarget root;
+        private final WebTarget target;
+        private final WebTarget batchTarget;
+        private final Map<String, String> headers;
+        private final File responseDir;
+        private final CircuitBreaker circuitBreaker;
+        private final ConcurrencyLimiter limiter;
+        private final TokenBucket requestRate;
+        private final TokenBucket byteRate;
+
+        private Destination(String name, WebTarget root, WebTarget target, WebTarget batchTarget, Map<String, String> headers, File responseDir,
+                CircuitBreaker circuitBreaker, ConcurrencyLimiter limiter, TokenBucket requestRate, TokenBucket byteRate) {
+            this.name = name;
+            this.root = root;
+            this.target = target;
+            this.batchTarget = batchTarget;
+            this.headers = headers;
+            this.responseDir = responseDir;
+            this.circuitBreaker = circuitBreaker;
+            this.limiter = limiter;
+            this.requestRate = requestRate;
+            this.byteRate = byteRate;
+        }
+    }
+
     private <T> T getInjectedObject(final T objectOrNull, final String objectName) {
         if (objectOrNull == null) {
             getLog().error(String.format("Found null [%s]: Maven @Component injection was not done properly.", objectName));
@@ -349,39 +851,22 @@ public class RestPlugin extends AbstractMojo {
     }
 
     private List<File> getFilesToProcess() throws MojoExecutionException {
-        List<File> files = new ArrayList<>();
-        if (null != getFileset()) {
-            if (null == getFilesets()) {
-                filesets = new ArrayList<>();
-            }
-            getFilesets().add(getFileset());
-
-        }
+        List<FileSet> all = new ArrayList<>();
         if (null != getFilesets()) {
-            for (FileSet fs : getFilesets()) {
-                if ((null != fs) && (null != fs.getDirectory())) {
-                    FileSetTransformer fileMgr = new FileSetTransformer(this, fs);
-                    files.addAll(fileMgr.toFileList());
-                }
-            }
+            all.addAll(getFilesets());
+        }
+        if (null != getFileset()) {
+            all.add(getFileset());
         }
-        return files;
+        return new FileSetTransformer(this).toFileList(all);
     }
 
     protected String readStream(InputStream in) throws MojoExecutionException {
-        byte[] buf = new byte[1024];
-        int sz = 0;
-        StringBuilder result = new StringBuilder();
         try {
-            while (sz != -1) {
-                sz = in.read(buf);
-                result.append(buf);
-            }
-            return result.toString();
+            return IOUtils.toString(in, "UTF-8");
         } catch (IOException e) {
             throw new MojoExecutionException("Unable to read result stream", e);
         }
-
     }
 
     protected <T> String wrap(String prefix, String suffix, List<T> tokens) {
@@ -403,18 +888,10 @@ public class RestPlugin extends AbstractMojo {
         return str.toString().substring(0, -delim.length());
     }
 
-    protected void pipeToFile(InputStream stream, File outputFile) throws IOException {
-        getLog().debug(String.format("Writing file [%s]", outputFile.getCanonicalPath()));
-        try (OutputStream outStream = new FileOutputStream(outputFile)) {
-
-            byte[] buffer = new byte[8 * 1024];
-            int bytesRead;
-            while ((bytesRead = stream.read(buffer)) != -1) {
-                outStream.write(buffer, 0, bytesRead);
-            }
-            IOUtils.closeQuietly(stream);
-            IOUtils.closeQuietly(outStream);
-        }
+    protected void pipeToFile(InputStream stream, File outputFile, Log log) throws IOException {
+        log.debug(String.format("Writing file [%s]", outputFile.getCanonicalPath()));
+        long size = ResponseBodies.save(stream, outputFile, isCompressResponse());
+        log.debug(String.format("Wrote %d byte(s) to [%s]", size, outputFile.getName()));
     }
 
     protected String remapFilename(String filename) {
@@ -464,244 +941,1231 @@ public class RestPlugin extends AbstractMojo {
 
     @Override
     public void execute() throws MojoExecutionException {
+        Client client = newClient();
+        try {
+            execute(client, this::processRequests);
+        } finally {
+            releaseClient(client);
+        }
+    }
+
+    /**
+     * Create the output dir and acquire the client used to send the requests,
+     * shared with the executions of other modules configuring the same
+     * client, to be released with {@link #releaseClient(Client)} by the
+     * caller.
+     */
+    protected Client newClient() throws MojoExecutionException {
         validateOutputDir();
         getLog().info(String.format("Output dir [%s]", new File(getOutputDir().toString()).getAbsolutePath()));
+        return ClientPool.acquire(newClientFactory());
+    }
 
-        Client client = ClientBuilder.newClient();
-
-        WebTarget baseTarget = client.target(getEndpoint());
-        baseTarget = validateAndAddResource(baseTarget);
-        baseTarget = validateAndAddQueryParams(baseTarget);
-
-        Invocation.Builder builder = baseTarget.request(getRequestType()).accept(getResponseType());
-        builder = validateAndAddHeadrs(builder);
-        getLog().info(String.format("Endpoint: [%s %s]", getMethod(), baseTarget.getUri()));
-
-        getLog().info(String.format("Generating xml scripts into [%s]", getOutputDir().getAbsolutePath()));
+    /**
+     * Release a client from {@link #newClient()}, closed once no execution
+     * uses it anymore.
+     */
+    protected void releaseClient(Client client) {
+        ClientPool.release(client);
+    }
 
-        createScriptsFromJavaFiles(getInputDir(), getJavaFile());
-        List<ErrorInfo> errorFiles = new ArrayList<>();
-        List<File> files = getFilesToProcess();
+    /**
+     * @param path a path of the configuration
+     * @return the file, relative to the <code>basedir</code> of the module if
+     *         the path is relative, rather than to the working directory of
+     *         the build
+     */
+    public File resolveFile(String path) {
+        File file = new File(path);
+        return file.isAbsolute() || getBasedir() == null ? file : new File(getBasedir(), path);
+    }
 
-        if ((null == files) || (files.isEmpty())) {
-            if (!getMethod().equalsIgnoreCase("GET")) {
-                getLog().error("No files to process");
+    /**
+     * Convert the java files and deploy their scripts only, with a client
+     * kept open between calls.
+     *
+     * @param client    the client, from {@link #newClient()}
+     * @param javaFiles the java files to convert and deploy
+     * @throws MojoExecutionException if a script could not be deployed
+     */
+    protected void redeploy(Client client, final List<File> javaFiles) throws MojoExecutionException {
+        execute(client, c -> {
+            List<Destination> destinations = newDestinations(c);
+            validateHeaders();
+            List<File> scripts = processConversion(javaFiles, getOutputDir(), false);
+            if (scripts.isEmpty()) {
+                getLog().error("No script converted");
                 return;
-            } else {
-                getLog().debug("GET request");
-                Response response = builder.method(getMethod());
-                ErrorInfo result = processResponse(response, remapFilename(getOutputFilename().getName()));
-                if (result != null) {
-                    errorFiles.add(result);
-                }
-            }
-        }
-
-        for (File f : files) {
-            getLog().debug(String.format("Submitting file [%s]", f.toString()));
-            Response response = builder.method(getMethod(), Entity.entity(f, getRequestType()));
-            ErrorInfo result = processResponse(response, remapFilename(f.getName()));
-            if (result != null) {
-                errorFiles.add(new FileErrorInfo(f.getPath(), result));
             }
-        }
+            deployAll(destinations, scripts);
+        });
+    }
 
-        if (!errorFiles.isEmpty()) {
-            throw new MojoExecutionException(String.format("Unable to process files:%n%s", wrap("  ", "%n", errorFiles)));
-        }
+    /**
+     * The requests sent with a client by
+     * {@link RestPlugin#execute(Client, ClientTask)}.
+     */
+    private interface ClientTask {
+        void run(Client client) throws MojoExecutionException;
     }
 
-    private Invocation.Builder validateAndAddHeadrs(Invocation.Builder builder) {
-        if (null != getHeaders()) {
-            getLog().info("load up the header info");
-            for (String k : getHeaders().keySet()) {
-                String hdr = getHeaders().get(k);
-                builder = builder.header(k, hdr);
-                getLog().debug(String.format("Header [%s:%s]", k, hdr));
+    private void execute(Client client, ClientTask task) throws MojoExecutionException {
+        manifest = isIncremental() ? loadManifest() : null;
+        journal = openJournal();
+        sources.clear();
+        dependencies = null;
+        fileContent = isInMemory() ? new ConvertedScripts(SCRIPT_WRITER) : FileContent.DISK;
+        report = new DeployReport();
+        retryPolicy = new RetryPolicy(getMaxRetries(), getRetryStatuses(), getRetryBackoff(), getRetryMaxBackoff());
+        getLog().debug(String.format("Retry: [%s]", retryPolicy));
+        try {
+            task.run(client);
+        } finally {
+            if (manifest != null) {
+                saveManifest();
             }
+            closeJournal();
+            writeReport();
         }
-        return builder;
     }
 
-    private WebTarget validateAndAddQueryParams(WebTarget baseTarget) {
-        if (null != getQueryParams()) {
-            getLog().info("load up the query parameters");
-            for (String k : getQueryParams().keySet()) {
-                String param = getQueryParams().get(k);
-                baseTarget = baseTarget.queryParam(k, param);
-                getLog().debug(String.format("Param [%s:%s]", k, param));
-            }
+    private void processRequests(Client client) throws MojoExecutionException {
+        List<Destination> destinations = newDestinations(client);
+        validateHeaders();
+
+        getLog().info(String.format("Generating xml scripts into [%s]", getOutputDir().getAbsolutePath()));
+
+        List<File> scripts = createScriptsFromJavaFiles(getInputDir(), getJavaFile());
+        final List<File> files;
+        if (isInMemory()) {
+            getLog().info(String.format("Submitting %d converted script(s) from memory", scripts.size()));
+            files = scripts;
+        } else {
+            files = getFilesToProcess();
         }
-        return baseTarget;
-    }
 
-    private WebTarget validateAndAddResource(WebTarget baseTarget) {
-        if (null != getResource()) {
-            getLog().info(String.format("Setting resource [%s]", getResource()));
-            baseTarget = baseTarget.path(getResource());
+        if ((null == files || files.isEmpty()) && !getMethod().equalsIgnoreCase("GET")) {
+            getLog().error("No files to process");
+            return;
         }
-        return baseTarget;
+        deployAll(destinations, files);
     }
 
     /**
-     * generate scripts xml format from java files
+     * Deploy the files to every destination, concurrently if there are
+     * several of them.
      *
-     * @param javaFilesDir a package to process
-     * @param javaFile     a java file to process
+     * @throws MojoExecutionException if a file could not be deployed to the
+     *                                single destination, or the quorum of
+     *                                destinations is not reached
      */
-    private void createScriptsFromJavaFiles(String javaFilesDir, String javaFile) {
-        List<File> javaFiles = new ArrayList<>();
+    private void deployAll(List<Destination> destinations, final List<File> files) throws MojoExecutionException {
+        if (destinations.size() == 1) {
+            List<ErrorInfo> errorFiles = deploy(destinations.get(0), files, getLog());
+            if (!errorFiles.isEmpty()) {
+                throw new MojoExecutionException(String.format("Unable to process files:%n%s", wrap("  ", "%n", errorFiles)));
+            }
+            return;
+        }
+
+        getLog().info(String.format("Deploying to %d endpoints", destinations.size()));
+        List<List<ErrorInfo>> results = OrderedTasks.run(destinations, destinations.size(), getLog(), (d, log) -> deploy(d, files, log));
+        List<String> failures = new ArrayList<>();
+        for (int i = 0; i < destinations.size(); i++) {
+            Destination destination = destinations.get(i);
+            List<ErrorInfo> errorFiles = results.get(i);
+            if (errorFiles.isEmpty()) {
+                getLog().info(String.format("Endpoint [%s]: deployed", destination.name));
+            } else {
+                getLog().error(String.format("Endpoint [%s]: %d failed file(s)", destination.name, errorFiles.size()));
+                failures.add(String.format("  Endpoint [%s]:%n%s", destination.name, wrap("    ", System.lineSeparator(), errorFiles)));
+            }
+        }
+        int succeeded = destinations.size() - failures.size();
+        int required = getQuorum() > 0 ? Math.min(getQuorum(), destinations.size()) : destinations.size();
+        if (succeeded < required) {
+            throw new MojoExecutionException(String.format("Deployed to %d of %d endpoint(s), %d required:%n%s", succeeded, destinations.size(), required,
+                    wrap("", "", failures)));
+        }
+        if (!failures.isEmpty()) {
+            getLog().warn(String.format("Deployed to %d of %d endpoint(s), quorum of %d reached", succeeded, destinations.size(), required));
+        }
+    }
+
+    /**
+     * Resolve the endpoints to deploy to: the <code>endpoints</code> if any,
+     * the <code>endpoint</code> otherwise.
+     *
+     * @throws MojoExecutionException if an endpoint has no url, or two
+     *                                endpoints have the same name
+     */
+    private List<Destination> newDestinations(Client client) throws MojoExecutionException {
+        List<Endpoint> configured = getEndpoints();
+        boolean fanOut = configured != null && !configured.isEmpty();
+        if (!fanOut) {
+            configured = Collections.singletonList(new Endpoint(null, getEndpoint(), null));
+        } else if (getEndpoint() != null) {
+            getLog().warn(String.format("Ignoring endpoint [%s], endpoints are configured", getEndpoint()));
+        }
+
+        List<Destination> destinations = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (Endpoint endpoint : configured) {
+            if (fanOut && endpoint.getUrl() == null) {
+                throw new MojoExecutionException(String.format("Endpoint [%s] has no url", endpoint.getName()));
+            }
+            if (fanOut && !names.add(endpoint.getName())) {
+                throw new MojoExecutionException(String.format("Duplicate endpoint name [%s], set a distinct name to each endpoint", endpoint.getName()));
+            }
+            WebTarget root = client.target(endpoint.getUrl());
+            WebTarget target = validateAndAddQueryParams(validateAndAddResource(root));
+            getLog().info(String.format("Endpoint: [%s %s]", getMethod(), target.getUri()));
+            WebTarget batchTarget = target;
+            if (isBatchMode() && getBatchResource() != null) {
+                batchTarget = validateAndAddQueryParams(client.target(endpoint.getUrl()).path(getBatchResource()));
+                getLog().info(String.format("Batch endpoint: [%s %s]", getMethod(), batchTarget.getUri()));
+            }
+            Map<String, String> requestHeaders = new LinkedHashMap<>();
+            if (getHeaders() != null) {
+                requestHeaders.putAll(getHeaders());
+            }
+            if (endpoint.getHeaders() != null) {
+                requestHeaders.putAll(endpoint.getHeaders());
+            }
+            File responseDir = fanOut ? new File(getOutputDir(), endpoint.getName()) : getOutputDir();
+            CircuitBreaker circuitBreaker = new CircuitBreaker(getCircuitBreakerThreshold(), getCircuitBreakerOpenTime());
+            ConcurrencyLimiter limiter = isAdaptiveConcurrency() ? new ConcurrencyLimiter(getMaxConcurrentRequests(), getLatencyTolerance()) : null;
+            TokenBucket requestRate = getRequestsPerSecond() > 0 ? new TokenBucket(getRequestsPerSecond(), Math.max(1, getRequestsPerSecond())) : null;
+            TokenBucket byteRate = getBytesPerSecond() > 0 ? new TokenBucket(getBytesPerSecond(), getBytesPerSecond()) : null;
+            destinations.add(new Destination(endpoint.getName(), root, target, batchTarget, requestHeaders, responseDir, circuitBreaker, limiter, requestRate,
+                    byteRate));
+        }
+        if (getRequestsPerSecond() > 0 || getBytesPerSecond() > 0) {
+            getLog().info(String.format("Rate limit per endpoint: [%s] request(s)/s, [%s] byte(s)/s", getRequestsPerSecond() > 0 ? getRequestsPerSecond() : "none",
+                    getBytesPerSecond() > 0 ? getBytesPerSecond() : "none"));
+        }
+        return destinations;
+    }
+
+    /**
+     * Deploy the files to an endpoint, or send a GET request to it if there is
+     * no file.
+     *
+     * @return the errors, one {@link FileErrorInfo} per failed file
+     * @throws MojoExecutionException if the submission is interrupted
+     */
+    private List<ErrorInfo> deploy(final Destination destination, List<File> files, Log log) throws MojoExecutionException {
+        File responseDir = destination.responseDir;
+        if (Boolean.TRUE.equals(getSaveResponse()) && !responseDir.isDirectory() && !responseDir.mkdirs()) {
+            throw new MojoExecutionException(String.format("Unable to create path [%s]", responseDir));
+        }
+        List<ErrorInfo> errorFiles = new ArrayList<>();
+        ScriptPlan plan = getPlan();
+        if (plan != null && (null == files || files.isEmpty())) {
+            log.info("No script to plan");
+            return errorFiles;
+        }
+        if (null == files || files.isEmpty()) {
+            log.debug("GET request");
+            RequestMetrics metrics = report.start(destination.name, getOutputFilename().getName(), 0);
+            Response response = send(destination, metrics, 0, () -> newRequest(destination, destination.target, metrics).method(getMethod()), log);
+            ErrorInfo result;
+            try {
+                result = processResponse(response, responseFile(destination, getOutputFilename().getName()), log);
+            } finally {
+                response.close();
+            }
+            metrics.finish(result);
+            if (result != null) {
+                errorFiles.add(result);
+            }
+            return errorFiles;
+        }
+
+        WebTarget target = isBatchMode() ? destination.batchTarget : destination.target;
+        Map<File, String> hashes = null;
+        if (manifest != null || (isResume() && journal != null)) {
+            hashes = new HashMap<>();
+            files = skipDeployedFiles(files, hashes, deploymentTarget(target), log);
+        }
+        if (plan != null) {
+            files = plan(destination, plan, files, hashes, errorFiles, log);
+            if (!plan.isApply()) {
+                return errorFiles;
+            }
+        }
+        errorFiles.addAll(submitLayers(destination, files, hashes, log));
+        if (destination.limiter != null) {
+            log.info(String.format("Adaptive concurrency limit: %d of %d", destination.limiter.getLimit(), destination.limiter.getMaxLimit()));
+        }
+        return errorFiles;
+    }
+
+    /**
+     * Submit the files in layers of dependencies, if any: each layer is
+     * submitted once the previous ones are done, and a file is not sent if a
+     * file it depends on failed.
+     */
+    private List<ErrorInfo> submitLayers(Destination destination, List<File> files, Map<File, String> hashes, Log log) throws MojoExecutionException {
+        if (dependencies == null || dependencies.isEmpty()) {
+            return submit(destination, files, hashes, log);
+        }
+        List<List<File>> layers = dependencies.layers(files);
+        log.info(String.format("Submitting %d file(s) in %d layer(s) of dependencies", files.size(), layers.size()));
+        List<ErrorInfo> errorFiles = new ArrayList<>();
+        Set<File> failed = new HashSet<>();
+        for (List<File> layer : layers) {
+            List<File> ready = new ArrayList<>();
+            for (File f : layer) {
+                File dependency = null;
+                for (File d : dependencies.getDependencies(f)) {
+                    if (failed.contains(d)) {
+                        dependency = d;
+                        break;
+                    }
+                }
+                if (dependency == null) {
+                    ready.add(f);
+                } else {
+                    log.error(String.format("Not submitting file [%s]: dependency [%s] failed", f, dependency.getName()));
+                    errorFiles.add(new FileErrorInfo(f.getPath(), String.format("Dependency [%s] failed", dependency.getName())));
+                    failed.add(DependencyGraph.normalize(f));
+                }
+            }
+            for (ErrorInfo error : submit(destination, ready, hashes, log)) {
+                errorFiles.add(error);
+                failed.add(DependencyGraph.normalize(new File(((FileErrorInfo) error).getFilename())));
+            }
+        }
+        return errorFiles;
+    }
+
+    private List<ErrorInfo> submit(Destination destination, List<File> files, Map<File, String> hashes, Log log) throws MojoExecutionException {
+        return isBatchMode() ? submitBatches(destination, files, hashes, log) : submitFiles(destination, files, hashes, log);
+    }
+
+    private File responseFile(Destination destination, String name) {
+        String suffix = isCompressResponse() ? ".response.gz" : ".response";
+        return new File(destination.responseDir, remapFilename(name) + suffix);
+    }
+
+    /**
+     * Compare the scripts with the ones of the endpoint, fetched with
+     * concurrent GET requests by code, and log what a deployment creates and
+     * updates.
+     *
+     * @param errorFiles receives the files whose script could not be fetched
+     * @return the files to create or update, and the files which are not
+     *         scripts
+     * @throws MojoExecutionException if the plan is interrupted
+     */
+    private List<File> plan(final Destination destination, final ScriptPlan plan, List<File> files, Map<File, String> hashes, List<ErrorInfo> errorFiles,
+            Log log) throws MojoExecutionException {
+        WebTarget resource = destination.root.path(plan.getResource());
+        log.info(String.format("Planning %d file(s) against [GET %s]", files.size(), resource.getUri()));
+        List<Object> actions = OrderedTasks.run(files, getMaxConcurrentRequests(), log, (f, fileLog) -> planFile(destination, resource, plan, f, fileLog));
+
+        List<File> delta = new ArrayList<>();
+        Map<ScriptPlan.Action, Integer> counts = new EnumMap<>(ScriptPlan.Action.class);
+        for (ScriptPlan.Action action : ScriptPlan.Action.values()) {
+            counts.put(action, 0);
+        }
+        WebTarget target = isBatchMode() ? destination.batchTarget : destination.target;
+        for (int i = 0; i < files.size(); i++) {
+            File f = files.get(i);
+            Object action = actions.get(i);
+            if (action instanceof ErrorInfo) {
+                errorFiles.add(new FileErrorInfo(f.getPath(), (ErrorInfo) action));
+            } else if (action == ScriptPlan.Action.UNCHANGED) {
+                counts.put(ScriptPlan.Action.UNCHANGED, counts.get(ScriptPlan.Action.UNCHANGED) + 1);
+                if (plan.isApply()) {
+                    recordDeployment(f, hashes, deploymentTarget(target), 200, log);
+                }
+            } else {
+                if (action != null) {
+                    counts.put((ScriptPlan.Action) action, counts.get(action) + 1);
+                }
+                delta.add(f);
+            }
+        }
+        log.info(String.format("Plan: %d to create, %d to update, %d unchanged%s", counts.get(ScriptPlan.Action.CREATE), counts.get(ScriptPlan.Action.UPDATE),
+                counts.get(ScriptPlan.Action.UNCHANGED), plan.isApply() ? "" : ", nothing submitted (dry run, set apply to submit)"));
+        return delta;
+    }
+
+    /**
+     * @return the {@link ScriptPlan.Action} of the file, null if it is not a
+     *         script, or the {@link ErrorInfo} of a failed request
+     */
+    private Object planFile(Destination destination, WebTarget resource, ScriptPlan plan, File f, Log log) {
+        ScriptInstance local;
+        try {
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            fileContent.writeTo(f, content);
+            local = ScriptPlan.readLocal(content.toByteArray());
+        } catch (IOException ex) {
+            local = null;
+        }
+        if (local == null) {
+            log.warn(String.format("File [%s] is not a script instance, it is submitted", f));
+            return null;
+        }
+
+        WebTarget target = resource.queryParam(plan.getCodeParam(), local.getCode());
+        RequestMetrics metrics = report.start(destination.name, "GET " + local.getCode(), 0);
+        Object result;
+        try {
+            Response response = send(destination, metrics, 0, () -> newRequest(destination, target, metrics).get(), log);
+            try {
+                int status = response.getStatus();
+                byte[] body = response.hasEntity() ? response.readEntity(byte[].class) : new byte[0];
+                if (status == 404 || status / 100 == 2) {
+                    result = ScriptPlan.compare(local, status, body);
+                } else {
+                    log.error(String.format("Unable to fetch script [%s]: status [%d]", local.getCode(), status));
+                    result = new ErrorInfo(status, String.format("Unable to fetch script [%s]", local.getCode()));
+                }
+            } finally {
+                response.close();
+            }
+        } catch (ProcessingException | IOException ex) {
+            log.error(String.format("Unable to fetch script [%s]: [%s]", local.getCode(), ex.getMessage()));
+            result = new ErrorInfo(String.format("%s: [%s]", ex.getClass().getSimpleName(), ex.getMessage()));
+        }
+        metrics.finish(result instanceof ErrorInfo ? (ErrorInfo) result : null);
+        if (result == ScriptPlan.Action.CREATE) {
+            log.info(String.format("  + %s (create)", local.getCode()));
+        } else if (result == ScriptPlan.Action.UPDATE) {
+            log.info(String.format("  ~ %s (update)", local.getCode()));
+        } else if (result == ScriptPlan.Action.UNCHANGED) {
+            log.debug(String.format("  = %s (unchanged)", local.getCode()));
+        }
+        return result;
+    }
+
+    /**
+     * The plan of the <code>plan</code> goal.
+     *
+     * @return the plan comparing the scripts with the ones of the endpoints,
+     *         null to submit every file
+     */
+    protected ScriptPlan getPlan() {
+        return null;
+    }
+
+    private void writeReport() {
+        report.finish();
+        if (report.getRequests().isEmpty()) {
+            return;
+        }
+        getLog().info(String.format("Requests: %s", report.toSummaryLine()));
+        File dir = getReportDir();
+        if (dir == null) {
+            return;
+        }
+        try {
+            report.write(dir);
+            getLog().info(String.format("Deploy report [%s]", new File(dir, DeployReport.JSON_REPORT).getAbsolutePath()));
+        } catch (IOException ex) {
+            getLog().warn(String.format("Unable to write deploy report into [%s]: [%s]", dir, ex.getMessage()));
+        }
+    }
+
+    private DeployManifest loadManifest() {
+        File file = getManifestFile();
+        try {
+            DeployManifest loaded = DeployManifest.load(file);
+            getLog().info(String.format("Incremental mode, manifest [%s]", file.getAbsolutePath()));
+            return loaded;
+        } catch (IOException ex) {
+            getLog().warn(String.format("Unable to read manifest [%s], processing all files: [%s]", file, ex.getMessage()));
+            return new DeployManifest();
+        }
+    }
+
+    private void saveManifest() {
+        try {
+            manifest.save(getManifestFile());
+        } catch (IOException ex) {
+            getLog().warn(String.format("Unable to write manifest [%s]: [%s]", getManifestFile(), ex.getMessage()));
+        }
+    }
+
+    private String deploymentTarget(WebTarget target) {
+        return getMethod() + " " + target.getUri();
+    }
+
+    private DeployJournal openJournal() {
+        File file = getJournalFile();
+        try {
+            DeployJournal opened = DeployJournal.open(file, isResume(), getJournalSyncInterval());
+            if (isResume()) {
+                getLog().info(String.format("Resuming from journal [%s]: %d file(s) acknowledged", file.getAbsolutePath(), opened.size()));
+            }
+            return opened;
+        } catch (IOException ex) {
+            getLog().warn(String.format("Unable to open journal [%s], deploying without it: [%s]", file, ex.getMessage()));
+            return null;
+        }
+    }
+
+    private void closeJournal() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+        } catch (IOException ex) {
+            getLog().warn(String.format("Unable to write journal [%s]: [%s]", getJournalFile(), ex.getMessage()));
+        }
+        journal = null;
+    }
+
+    /**
+     * Record the response of a submitted file in the manifest of the
+     * incremental mode and in the journal.
+     * <p>
+     * The hash of the file is the one computed to skip it, or is computed by
+     * the worker which submitted it, so a deployment which skips nothing does
+     * not hash every file before submitting the first one.
+     *
+     * @param hashes the hashes computed to skip the files, may be null
+     */
+    private void recordDeployment(File f, Map<File, String> hashes, String target, int status, Log log) {
+        if (manifest == null && journal == null) {
+            return;
+        }
+        String hash = hashes == null ? null : hashes.get(f);
+        if (hash == null) {
+            try {
+                hash = fileContent.sha256(f);
+            } catch (IOException ex) {
+                log.warn(String.format("Unable to hash file [%s]: [%s]", f, ex.getMessage()));
+                return;
+            }
+        }
+        if (manifest != null) {
+            manifest.recordDeployment(f, hash, target, status);
+        }
+        DeployJournal current = journal;
+        if (current != null) {
+            try {
+                current.record(f, hash, target, status);
+            } catch (IOException ex) {
+                log.warn(String.format("Unable to write journal [%s]: [%s]", getJournalFile(), ex.getMessage()));
+            }
+        }
+    }
+
+    /**
+     * Hash the files to process and drop the ones already submitted with
+     * success with the same content, according to the manifest of the
+     * incremental mode or the journal of the resumed deployment.
+     *
+     * @param files  the files to process
+     * @param hashes filled with the hash of every file kept
+     * @param target the method and URI the files are submitted to
+     * @param log    the log of the endpoint
+     * @return the files which must be submitted
+     */
+    private List<File> skipDeployedFiles(List<File> files, Map<File, String> hashes, String target, Log log) {
+        List<File> changed = new ArrayList<>();
+        for (File f : files) {
+            try {
+                String hash = fileContent.sha256(f);
+                if (manifest != null && manifest.isDeployed(f, hash, target)) {
+                    log.debug(String.format("Skipping unchanged file [%s]", f));
+                } else if (isResume() && journal != null && journal.isAcknowledged(f, hash, target)) {
+                    log.debug(String.format("Skipping file [%s] acknowledged before", f));
+                } else {
+                    hashes.put(f, hash);
+                    changed.add(f);
+                }
+            } catch (IOException ex) {
+                log.warn(String.format("Unable to hash file [%s]: [%s]", f, ex.getMessage()));
+                changed.add(f);
+            }
+        }
+        if (manifest != null || isResume()) {
+            log.info(String.format("Skipping %d file(s) already deployed", files.size() - changed.size()));
+        }
+        return changed;
+    }
+
+    private ClientFactory newClientFactory() {
+        ClientFactory factory = new ClientFactory();
+        factory.setConnector(getConnector());
+        factory.setMaxConnections(Math.max(getMaxConnections(), getMaxConcurrentRequests()));
+        factory.setKeepAlive(isKeepAlive());
+        factory.setConnectTimeout(getConnectTimeout());
+        factory.setReadTimeout(getReadTimeout());
+        factory.setSocketBufferSize(getSocketBufferSize());
+        factory.setRequestCompression(getRequestCompression());
+        getLog().info(String.format("Connector: [%s]", factory));
+        return factory;
+    }
+
+    /**
+     * Submit every file to the REST resource, using at most
+     * <code>maxConcurrentRequests</code> requests in flight.
+     *
+     * @param destination the endpoint to submit the files to
+     * @param files       the files to submit
+     * @param hashes      the hash of each file computed to skip the files
+     *                    deployed before, null if none was skipped. The
+     *                    missing hashes are computed by the workers
+     * @param log         the log of the endpoint
+     * @return the errors, one {@link FileErrorInfo} per failed file
+     * @throws MojoExecutionException if the submission is interrupted
+     */
+    private List<ErrorInfo> submitFiles(final Destination destination, List<File> files, final Map<File, String> hashes, Log log)
+            throws MojoExecutionException {
+        List<ErrorInfo> errorFiles = new ArrayList<>();
+        if (files.isEmpty()) {
+            return errorFiles;
+        }
+        int poolSize = Math.max(1, Math.min(getMaxConcurrentRequests(), files.size()));
+        log.info(String.format("Submitting %d file(s), %d request(s) at a time", files.size(), poolSize));
+
+        List<ErrorInfo> results = OrderedTasks.run(files, poolSize, log, (f, fileLog) -> submitFile(destination, f, hashes, fileLog));
+        for (int i = 0; i < files.size(); i++) {
+            if (results.get(i) != null) {
+                errorFiles.add(new FileErrorInfo(files.get(i).getPath(), results.get(i)));
+            }
+        }
+        return errorFiles;
+    }
+
+    private ErrorInfo submitFile(Destination destination, File f, Map<File, String> hashes, Log log) {
+        log.debug(String.format("Submitting file [%s]", f.toString()));
+        RequestMetrics metrics = report.start(destination.name, f.getName(), 1);
+        ErrorInfo result;
+        try {
+            Response response = send(destination, metrics, fileContent.size(f),
+                    () -> newRequest(destination, destination.target, metrics).method(getMethod(), Entity.entity(fileContent.toEntity(f), getRequestType())),
+                    log);
+            try {
+                recordDeployment(f, hashes, deploymentTarget(destination.target), response.getStatus(), log);
+                result = processResponse(response, responseFile(destination, f.getName()), log);
+            } finally {
+                response.close();
+            }
+        } catch (ProcessingException ex) {
+            log.error(String.format("Request failed: [%s]", ex.getMessage()));
+            result = new ErrorInfo(String.format("ProcessingException: [%s]", ex.getMessage()));
+        }
+        metrics.finish(result);
+        return result;
+    }
+
+    /**
+     * Submit the files to the batch resource, grouped by
+     * <code>batchSize</code> and <code>batchMaxBytes</code>, using at most
+     * <code>maxConcurrentRequests</code> requests in flight.
+     *
+     * @param destination the endpoint to submit the batches to
+     * @param files       the files to submit
+     * @param hashes      the hash of each file computed to skip the files
+     *                    deployed before, null if none was skipped. The
+     *                    missing hashes are computed by the workers
+     * @param log         the log of the endpoint
+     * @return the errors, one {@link FileErrorInfo} per failed file
+     * @throws MojoExecutionException if the submission is interrupted
+     */
+    private List<ErrorInfo> submitBatches(final Destination destination, List<File> files, final Map<File, String> hashes, Log log)
+            throws MojoExecutionException {
+        List<ErrorInfo> errorFiles = new ArrayList<>();
+        if (files.isEmpty()) {
+            return errorFiles;
+        }
+        List<BatchRequest> batches = BatchRequest.split(files, getBatchSize(), getBatchMaxBytes(), fileContent);
+        int poolSize = Math.max(1, Math.min(getMaxConcurrentRequests(), batches.size()));
+        log.info(String.format("Submitting %d file(s) in %d batch(es), %d request(s) at a time", files.size(), batches.size(), poolSize));
+
+        for (List<ErrorInfo> results : OrderedTasks.run(batches, poolSize, log, (batch, batchLog) -> submitBatch(destination, batch, hashes, batchLog))) {
+            errorFiles.addAll(results);
+        }
+        return errorFiles;
+    }
+
+    private List<ErrorInfo> submitBatch(Destination destination, BatchRequest batch, Map<File, String> hashes, Log log) {
+        log.debug(String.format("Submitting [%s]: %d file(s), %d byte(s)", batch.getName(), batch.size(), batch.getBytes()));
+        RequestMetrics metrics = report.start(destination.name, batch.getName(), batch.size());
+        List<ErrorInfo> results;
+        try {
+            Response response = send(destination, metrics, batch.getBytes(),
+                    () -> newRequest(destination, destination.batchTarget, metrics).method(getMethod(), Entity.entity(batch.toEntity(fileContent), getRequestType())),
+                    log);
+            try {
+                byte[] body = response.hasEntity() ? response.readEntity(byte[].class) : new byte[0];
+                if (Boolean.TRUE.equals(getSaveResponse())) {
+                    pipeToFile(new ByteArrayInputStream(body), responseFile(destination, batch.getName()), log);
+                }
+                log.debug(String.format("Status: [%d]", response.getStatus()));
+                results = batch.mapResults(response.getStatus(), body);
+            } finally {
+                response.close();
+            }
+        } catch (ProcessingException | IOException ex) {
+            log.error(String.format("Request failed: [%s]", ex.getMessage()));
+            results = Collections.nCopies(batch.size(), new ErrorInfo(String.format("%s: [%s]", ex.getClass().getSimpleName(), ex.getMessage())));
+        }
+
+        List<ErrorInfo> errorFiles = new ArrayList<>();
+        int failed = batch.size() - Collections.frequency(results, null);
+        metrics.finish(failed == 0 ? null : new ErrorInfo(metrics.getStatus(), String.format("%d of %d file(s) failed", failed, batch.size())));
+        for (int i = 0; i < batch.size(); i++) {
+            File f = batch.getFiles().get(i);
+            ErrorInfo result = results.get(i);
+            recordDeployment(f, hashes, deploymentTarget(destination.batchTarget), result == null ? 200 : result.getErrorCode(), log);
+            if (result != null) {
+                log.error(String.format("Failed file [%s]: [%s]", f, result.getMessage()));
+                errorFiles.add(new FileErrorInfo(f.getPath(), result));
+            }
+        }
+        return errorFiles;
+    }
+
+    /**
+     * Send a request, and send it again according to the retry policy while
+     * it fails with a transport failure or a retryable status.
+     * <p>
+     * No request is sent while the circuit breaker of the endpoint is open.
+     * Each attempt waits for the rate limits of the endpoint, then with
+     * <code>adaptiveConcurrency</code> for its concurrency limiter, to which
+     * it reports its latency.
+     *
+     * @param destination the endpoint the request is sent to
+     * @param metrics     the metrics of the request
+     * @param bytes       the size of the request body
+     * @param request     sends the request, called once per attempt
+     * @param log         the log of the request
+     * @return the response of the last attempt, to be closed by the caller
+     * @throws ProcessingException if the last attempt failed, or the circuit
+     *                             breaker is open
+     */
+    private Response send(Destination destination, RequestMetrics metrics, long bytes, Supplier<Response> request, Log log) {
+        CircuitBreaker circuitBreaker = destination.circuitBreaker;
+        for (int attempt = 1;; attempt++) {
+            if (!circuitBreaker.allowRequest()) {
+                throw new ProcessingException(String.format("Circuit breaker open after %d consecutive failures", circuitBreaker.getThreshold()));
+            }
+            Response response;
+            try {
+                throttle(destination, bytes);
+                response = attempt(destination.limiter, metrics, request);
+            } catch (ProcessingException ex) {
+                circuitBreaker.recordFailure();
+                if (!retryPolicy.canRetry(attempt)) {
+                    throw ex;
+                }
+                backoff(attempt, retryPolicy.backoff(attempt, null), ex.getMessage(), log);
+                continue;
+            }
+            if (!retryPolicy.isRetryable(response.getStatus())) {
+                circuitBreaker.recordSuccess();
+                return response;
+            }
+            circuitBreaker.recordFailure();
+            if (!retryPolicy.canRetry(attempt)) {
+                return response;
+            }
+            long delay = retryPolicy.backoff(attempt, response.getHeaderString("Retry-After"));
+            response.close();
+            backoff(attempt, delay, "Status " + response.getStatus(), log);
+        }
+    }
+
+    private void throttle(Destination destination, long bytes) {
+        try {
+            if (destination.requestRate != null) {
+                destination.requestRate.acquire(1);
+            }
+            if (destination.byteRate != null && bytes > 0) {
+                destination.byteRate.acquire(bytes);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ProcessingException("Interrupted while waiting for the rate limit", ex);
+        }
+    }
+
+    private Response attempt(ConcurrencyLimiter limiter, RequestMetrics metrics, Supplier<Response> request) {
+        if (limiter == null) {
+            metrics.attempt();
+            Response response = request.get();
+            metrics.responded(response.getStatus());
+            return response;
+        }
+        try {
+            limiter.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ProcessingException("Interrupted while waiting for the concurrency limit", ex);
+        }
+        long start = System.nanoTime();
+        boolean overloaded = true;
+        try {
+            metrics.attempt();
+            Response response = request.get();
+            metrics.responded(response.getStatus());
+            overloaded = response.getStatus() == 429 || response.getStatus() == Response.Status.SERVICE_UNAVAILABLE.getStatusCode();
+            return response;
+        } finally {
+            limiter.release(System.nanoTime() - start, overloaded);
+        }
+    }
+
+    private void backoff(int attempt, long delay, String reason, Log log) {
+        log.warn(String.format("Request failed: [%s], retry %d/%d in %d ms", reason, attempt, retryPolicy.getMaxRetries(), delay));
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ProcessingException("Interrupted while waiting to retry", ex);
+        }
+    }
+
+    /**
+     * Create a new request on the target, with the configured media types and
+     * headers.
+     * <p>
+     * A new builder is created per request since an {@link Invocation.Builder}
+     * must not be shared between threads.
+     */
+    private Invocation.Builder newRequest(Destination destination, WebTarget target, RequestMetrics metrics) {
+        Invocation.Builder builder = target.request(getRequestType()).accept(getResponseType()).property(RequestMetrics.PROPERTY, metrics);
+        for (Map.Entry<String, String> hdr : destination.headers.entrySet()) {
+            builder = builder.header(hdr.getKey(), hdr.getValue());
+        }
+        return builder;
+    }
+
+    private void validateHeaders() {
+        if (null != getHeaders()) {
+            getLog().info("load up the header info");
+            for (String k : getHeaders().keySet()) {
+                getLog().debug(String.format("Header [%s:%s]", k, getHeaders().get(k)));
+            }
+        }
+    }
+
+    private WebTarget validateAndAddQueryParams(WebTarget baseTarget) {
+        if (null != getQueryParams()) {
+            getLog().info("load up the query parameters");
+            for (String k : getQueryParams().keySet()) {
+                String param = getQueryParams().get(k);
+                baseTarget = baseTarget.queryParam(k, param);
+                getLog().debug(String.format("Param [%s:%s]", k, param));
+            }
+        }
+        return baseTarget;
+    }
+
+    private WebTarget validateAndAddResource(WebTarget baseTarget) {
+        if (null != getResource()) {
+            getLog().info(String.format("Setting resource [%s]", getResource()));
+            baseTarget = baseTarget.path(getResource());
+        }
+        return baseTarget;
+    }
+
+    /**
+     * generate scripts xml format from java files
+     *
+     * @param javaFilesDir a package to process
+     * @param javaFile     a java file to process
+     * @return the scripts, in the order of the java files
+     * @throws MojoExecutionException if the conversion is interrupted
+     */
+    private List<File> createScriptsFromJavaFiles(String javaFilesDir, String javaFile) throws MojoExecutionException {
+        List<File> javaFiles = new ArrayList<>();
         if (javaFilesDir != null) {
-            File dir = new File(javaFilesDir);
+            File dir = resolveFile(javaFilesDir);
             if (!dir.exists() || dir.isDirectory()) {
                 javaFiles.addAll(getAllJavaFilesInDir(dir));
             }
         }
         if (javaFile != null) {
-            File singleJavaFile = new File(javaFile);
+            File singleJavaFile = resolveFile(javaFile);
             if (singleJavaFile.exists() && singleJavaFile.getName().endsWith(".java")) {
                 javaFiles.add(singleJavaFile);
             } else {
-                getLog().warn(String.format("can not process this file %s", javaFile));
+                getLog().warn(String.format("can not process this file %s", javaFile));
+            }
+        }
+        getLog().debug(String.format("processing files %d", javaFiles.size()));
+        return processConversion(javaFiles, getOutputDir(), true);
+    }
+
+    private List<File> getAllJavaFilesInDir(File dir) {
+        List<File> javaFiles = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(Paths.get(dir.getAbsolutePath()))) {
+
+            return walk.filter(Files::isRegularFile).filter(f -> f.toFile().getName().endsWith(".java")).map(Path::toFile).collect(Collectors.toList());
+
+        } catch (Exception e) {
+            getLog().info(String.format("error reading dir %s", dir), e);
+        }
+        return javaFiles;
+    }
+
+    private ErrorInfo processResponse(Response response, File responseFile, Log log) {
+        boolean successful = response.getStatusInfo().getFamily() == Family.SUCCESSFUL;
+        String errorBody = null;
+        try {
+            if (Boolean.TRUE.equals(getSaveResponse())) {
+                InputStream in = response.readEntity(InputStream.class);
+                ResponseBodies.Capture capture = successful ? null : new ResponseBodies.Capture(in, getErrorBodyLimit());
+                pipeToFile(capture == null ? in : capture, responseFile, log);
+                errorBody = capture == null ? null : capture.getText();
+            } else if (!successful && response.hasEntity()) {
+                errorBody = ResponseBodies.read(response.readEntity(InputStream.class), getErrorBodyLimit());
+            }
+        } catch (IOException ex) {
+            log.debug(String.format("IOException: [%s]", ex.toString()));
+            return new ErrorInfo(String.format("IOException: [%s]", ex.getMessage()));
+        }
+        if (successful) {
+            log.debug(String.format("Status: [%d]", response.getStatus()));
+        } else {
+            log.error(String.format("Error code: [%d]", response.getStatus()));
+            log.debug(String.valueOf(errorBody));
+            return new ErrorInfo(response.getStatus(), errorBody == null ? "" : errorBody);
+        }
+        return null;
+    }
+
+    /**
+     * Convert the java files to scripts, using <code>conversionThreads</code>
+     * threads.
+     * <p>
+     * Each script is written to a temporary file which is then atomically
+     * renamed, so a partially written script is never picked up by the
+     * fileset, and only if its content changed. In the <code>inMemory</code>
+     * mode, the scripts are kept in memory and only written if
+     * <code>mirrorToDisk</code> is set.
+     * <p>
+     * The output dir is not emptied: a full conversion deletes the scripts it
+     * generated before from sources which were removed or renamed, according
+     * to the {@link OutputIndex} of the java sources.
+     * <p>
+     * With the <code>scriptCache</code>, the last commits of the java files
+     * are cached by HEAD in the {@link ScriptCache}, so the git history is
+     * only walked once per commit checked out.
+     *
+     * @param javaFiles the java files to convert
+     * @param outDir    the directory the scripts are written to
+     * @param full      true if the java files are all the sources, false if
+     *                  only some of them are converted
+     * @return the scripts converted or skipped as unchanged, in the order of
+     * the java files
+     * @throws MojoExecutionException if the conversion is interrupted
+     */
+    private List<File> processConversion(List<File> javaFiles, File outDir, boolean full) throws MojoExecutionException {
+        List<File> scripts = new ArrayList<>();
+        if (javaFiles.isEmpty()) {
+            return scripts;
+        }
+        int threads = getConversionThreads() > 0 ? getConversionThreads() : Runtime.getRuntime().availableProcessors();
+        threads = Math.min(threads, javaFiles.size());
+        getLog().debug(String.format("Converting %d file(s) with %d thread(s)", javaFiles.size(), threads));
+
+        final AtomicInteger skipped = new AtomicInteger();
+        OutputIndex index = !isInMemory() || isMirrorToDisk() ? loadOutputIndex(outDir) : null;
+        gitMetadata = openGitMetadata(javaFiles);
+        convertedScripts = isScriptCache() ? new ScriptCache(getScriptCacheDir(), getScriptCacheMaxSize() * 1024 * 1024) : null;
+        try {
+            List<File> uncached = lookupScriptCache(javaFiles, threads);
+            if (gitMetadata != null) {
+                try {
+                    gitMetadata.resolve(uncached);
+                } catch (IOException e) {
+                    getLog().error(String.format("can not get git information from [%s]: [%s]", gitMetadata.getWorkTree(), e.getMessage()));
+                    gitMetadata.close();
+                    gitMetadata = null;
+                    // do not cache scripts without their git information
+                    cacheKeys.clear();
+                }
+            }
+            List<File> converted = OrderedTasks.run(javaFiles, threads, getLog(), (file, log) -> convert(file, outDir, skipped, log));
+            for (int i = 0; i < converted.size(); i++) {
+                File script = converted.get(i);
+                if (script != null) {
+                    scripts.add(script);
+                    if (index != null) {
+                        index.put(javaFiles.get(i), script);
+                    }
+                }
+            }
+        } finally {
+            if (gitMetadata != null) {
+                gitMetadata.close();
+                gitMetadata = null;
+            }
+            cacheKeys.clear();
+        }
+        if (manifest != null) {
+            getLog().info(String.format("Skipping conversion of %d unchanged script(s)", skipped.get()));
+        }
+        if (convertedScripts != null) {
+            evictScriptCache();
+        }
+        if (index != null) {
+            updateOutputIndex(index, javaFiles, full);
+        }
+        if (isDependencyOrder()) {
+            dependencies = DependencyGraph.of(sources);
+            if (!dependencies.isEmpty()) {
+                getLog().info(String.format("%d script(s) depend on other scripts", dependencies.size()));
+            }
+        }
+        return scripts;
+    }
+
+    /**
+     * Convert a java file to a script.
+     *
+     * @param skipped incremented if the file was skipped because it did not
+     *                change
+     * @return the script file, null if the conversion failed
+     */
+    private File convert(File file, File outDir, AtomicInteger skipped, Log log) {
+        ScriptInstance dto = new ScriptInstance();
+        try {
+            byte[] content = Files.readAllBytes(file.toPath());
+            String sourceHash = null;
+            if (manifest != null) {
+                sourceHash = Digests.sha256(content);
+                String code = manifest.findConverted(file, sourceHash, outDir);
+                if (code != null) {
+                    log.debug(String.format("Skipping unchanged script [%s]", code));
+                    skipped.incrementAndGet();
+                    File script = new File(outDir, manifest.getScripts().get(code).getOutput());
+                    if (isDependencyOrder()) {
+                        sources.put(script, SourceMetadataExtractor.extract(new String(content)));
+                    }
+                    return script;
+                }
+            }
+            String source = new String(content);
+            String cacheKey = cacheKeys.get(file);
+            ScriptInstance cached = cacheKey != null ? convertedScripts.get(cacheKey) : null;
+            SourceMetadata metadata = null;
+            if (cached != null) {
+                dto = cached;
+                if (isDependencyOrder()) {
+                    metadata = SourceMetadataExtractor.extract(source);
+                }
+            } else {
+                metadata = SourceMetadataExtractor.extract(source, isDependencyOrder());
+                String description = metadata.getJavadoc() + getGitInformation(file, log);
+                dto.setDescription(description);
+                dto.setScript(source);
+                dto.setCode(metadata.getFullClassName());
+                if (cacheKey != null) {
+                    try {
+                        convertedScripts.put(cacheKey, dto);
+                    } catch (IOException ex) {
+                        log.debug(String.format("Unable to cache script [%s]: [%s]", dto.getCode(), ex.getMessage()));
+                    }
+                }
+            }
+            String code = dto.getCode();
+
+            String output = dto.getCode().concat(".json");
+            File script = new File(outDir, output);
+            if (isDependencyOrder()) {
+                sources.put(script, metadata);
+            }
+            if (fileContent instanceof ConvertedScripts) {
+                ((ConvertedScripts) fileContent).put(script, dto);
+            }
+            if (!isInMemory() || isMirrorToDisk()) {
+                writeAtomically(dto, script);
+            }
+            if (manifest != null) {
+                manifest.recordConversion(code, file, sourceHash, output);
+            }
+            return script;
+        } catch (Exception e) {
+            log.error("Error when reading " + file.getName(), e);
+        }
+        return null;
+    }
+
+    private OutputIndex loadOutputIndex(File outDir) {
+        List<String> roots = new ArrayList<>();
+        for (String root : Arrays.asList(getInputDir(), getJavaFile())) {
+            if (root != null) {
+                roots.add(resolveFile(root).getPath());
+            }
+        }
+        try {
+            return OutputIndex.load(outDir, roots);
+        } catch (IOException ex) {
+            getLog().warn(String.format("Unable to read the index of [%s], stale scripts are kept: [%s]", outDir, ex.getMessage()));
+            return null;
+        }
+    }
+
+    /**
+     * Save the index of the output dir, after deleting the stale scripts if
+     * all the sources were converted.
+     */
+    private void updateOutputIndex(OutputIndex index, List<File> javaFiles, boolean full) {
+        try {
+            if (full) {
+                int deleted = 0;
+                for (File stale : index.collect(javaFiles)) {
+                    try {
+                        if (Files.deleteIfExists(stale.toPath())) {
+                            getLog().debug(String.format("Deleted stale script [%s]", stale));
+                            deleted++;
+                        }
+                    } catch (IOException ex) {
+                        getLog().warn(String.format("Unable to delete stale script [%s]: [%s]", stale, ex.getMessage()));
+                    }
+                }
+                if (deleted > 0) {
+                    getLog().info(String.format("Deleted %d stale script(s)", deleted));
+                }
+            } else {
+                index.retainPrevious();
             }
+            index.save();
+        } catch (IOException ex) {
+            getLog().warn(String.format("Unable to update the index of the output dir: [%s]", ex.getMessage()));
         }
-        getLog().debug(String.format("processing files %d", javaFiles.size()));
-        processConversion(javaFiles, getOutputDir());
     }
 
-    private List<File> getAllJavaFilesInDir(File dir) {
-        List<File> javaFiles = new ArrayList<>();
-        try (Stream<Path> walk = Files.walk(Paths.get(dir.getAbsolutePath()))) {
-
-            return walk.filter(Files::isRegularFile).filter(f -> f.toFile().getName().endsWith(".java")).map(Path::toFile).collect(Collectors.toList());
-
-        } catch (Exception e) {
-            getLog().info(String.format("error reading dir %s", dir), e);
+    /**
+     * Write a script unless the file already has the same content, so the
+     * unchanged scripts keep their modification time.
+     */
+    private void writeAtomically(ScriptInstance dto, File output) throws IOException {
+        byte[] content = SCRIPT_WRITER.writeValueAsBytes(dto);
+        if (output.length() == content.length && Arrays.equals(content, Files.readAllBytes(output.toPath()))) {
+            return;
+        }
+        File tmp = File.createTempFile(output.getName(), ".tmp", output.getParentFile());
+        try {
+            Files.write(tmp.toPath(), content);
+            Files.move(tmp.toPath(), output.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
         }
-        return javaFiles;
     }
 
-    private ErrorInfo processResponse(Response response, String outputFilename) {
-        if (Boolean.TRUE.equals(getSaveResponse())) {
-            InputStream in = response.readEntity(InputStream.class);
+    /**
+     * Compute the cache key of every java file, from its content and its last
+     * commit.
+     *
+     * @return the java files whose script is not cached
+     */
+    private List<File> lookupScriptCache(List<File> javaFiles, int threads) throws MojoExecutionException {
+        if (convertedScripts == null) {
+            return javaFiles;
+        }
+        final String version = plugin != null ? plugin.getVersion() : null;
+        if (gitMetadata != null) {
             try {
-                File of = new File(getOutputDir(), outputFilename + ".response");
-                pipeToFile(in, of);
+                resolveLastCommits(javaFiles);
             } catch (IOException ex) {
-                getLog().debug(String.format("IOException: [%s]", ex.toString()));
-                return new ErrorInfo(String.format("IOException: [%s]", ex.getMessage()));
+                getLog().warn(String.format("Unable to resolve the last commits in [%s], scripts are not cached: [%s]", gitMetadata.getWorkTree(),
+                        ex.getMessage()));
+                return javaFiles;
             }
         }
-        if (response.getStatusInfo().getFamily() == Family.SUCCESSFUL) {
-            getLog().debug(String.format("Status: [%d]", response.getStatus()));
-        } else {
-            getLog().error(String.format("Error code: [%d]", response.getStatus()));
-            getLog().debug(response.getEntity().toString());
-            return new ErrorInfo(response.getStatus(), response.getEntity().toString());
+        List<String> keys = OrderedTasks.run(javaFiles, threads, getLog(), (file, log) -> {
+            try {
+                GitMetadataService.CommitInfo commit = gitMetadata != null ? gitMetadata.getLastCommit(file) : null;
+                return ScriptCache.key(version, commit != null ? commit.getId() : null, Files.readAllBytes(file.toPath()));
+            } catch (IOException ex) {
+                return null;
+            }
+        });
+        List<File> uncached = new ArrayList<>();
+        for (int i = 0; i < javaFiles.size(); i++) {
+            String key = keys.get(i);
+            if (key != null) {
+                cacheKeys.put(javaFiles.get(i), key);
+            }
+            if (key == null || !convertedScripts.contains(key)) {
+                uncached.add(javaFiles.get(i));
+            }
         }
-        return null;
+        getLog().debug(String.format("%d of %d script(s) found in cache [%s]", javaFiles.size() - uncached.size(), javaFiles.size(),
+                convertedScripts.getDir()));
+        return uncached;
     }
 
-    private void processConversion(List<File> javaFiles, File outDir) {
-        if (outDir.exists()) {
-            // delete old content
-            for (File file : outDir.listFiles()) {
-                try {
-                    Files.delete(file.toPath());
-                } catch (IOException e) {
-                    getLog().debug(e);
-                }
-            }
+    /**
+     * Resolve the last commit of every java file. The last commits are cached
+     * by HEAD, so the history is only walked for the files not resolved
+     * before from the same commit.
+     */
+    private void resolveLastCommits(List<File> javaFiles) throws IOException {
+        String head = gitMetadata.getHead();
+        Map<String, GitMetadataService.CommitInfo> known = head != null ? convertedScripts.getLastCommits(head) : null;
+        if (known != null) {
+            gitMetadata.addLastCommits(known);
         }
-        ObjectMapper mapper = new ObjectMapper();
-        for (File file : javaFiles) {
-            ScriptInstance dto = new ScriptInstance();
+        gitMetadata.resolve(javaFiles);
+        Map<String, GitMetadataService.CommitInfo> resolved = gitMetadata.getLastCommits();
+        if (head != null && (known == null || !known.keySet().containsAll(resolved.keySet()))) {
             try {
-                String source = new String(Files.readAllBytes(Paths.get(file.getAbsolutePath())));
-                String code = getFullClassName(source);
-                String description = getDescription(source) + getGitInformation(file);
-                dto.setDescription(description);
-                dto.setScript(source);
-                dto.setCode(code);
-
-                mapper.writeValue(new File(outDir, dto.getCode().concat(".json")), dto);
-
-            } catch (Exception e) {
-                getLog().error("Error when reading " + file.getName(), e);
+                convertedScripts.putLastCommits(head, resolved);
+            } catch (IOException ex) {
+                getLog().debug(String.format("Unable to cache the last commits of [%s]: [%s]", head, ex.getMessage()));
             }
         }
     }
 
-    private String getGitInformation(File file) {
-        String result = "";
+    private void evictScriptCache() {
+        getLog().info(String.format("Script cache: %d hit(s), %d miss(es)", convertedScripts.getHits(), convertedScripts.getMisses()));
         try {
-            //Load repository
-            FileRepositoryBuilder builder = new FileRepositoryBuilder();
-            Repository repository = builder.setGitDir(new File(".git")).setMustExist(true).build();
-            Git git = new Git(repository);
-            Ref head = repository.findRef("HEAD");
-
-            // a RevWalk allows to walk over commits based on some filtering that is defined
-            String name;
-            String time;
-            try (RevWalk walk = new RevWalk(repository)) {
-                RevCommit commit = walk.parseCommit(head.getObjectId());
-                RevTree tree = commit.getTree();
-                name = commit.getAuthorIdent().getName();
-                time = LocalDateTime.ofEpochSecond(commit.getCommitTime(), 0, ZoneOffset.UTC).toString();
-
-                getLog().debug("file " + file);
-                String path = file.getPath().substring(file.getPath().indexOf("src")).replaceAll("\\\\", "/");
-                getLog().debug("path " + path);
-                TreeWalk treeWalk = TreeWalk.forPath(repository, path, tree);
-
-                if (treeWalk == null) {
-                    getLog().info("Did not find expected file '" + path + "' in tree '" + tree.getName() + "'");
-                } else {
-                    result = String.format("\tLast updated By %s on %s", name, time);
-                }
+            int evicted = convertedScripts.evict();
+            if (evicted > 0) {
+                getLog().debug(String.format("Evicted %d script(s) from cache [%s]", evicted, convertedScripts.getDir()));
             }
-            git.close();
-        } catch (Exception e) {
-            getLog().error("can not get git information for file " + file.getName());
+        } catch (IOException ex) {
+            getLog().warn(String.format("Unable to evict scripts from cache [%s]: [%s]", convertedScripts.getDir(), ex.getMessage()));
         }
-        return result;
     }
 
-    private String patternMatches(String source, String regex, int group) {
-        Pattern pattern = Pattern.compile(regex);
-
-        Matcher m = pattern.matcher(source);
-        String text = "";
-        if (m.find()) {
-            text = m.group(group);
+    /**
+     * Open the git repository containing the java files. The last commit of
+     * the files is resolved by {@link GitMetadataService#resolve}, in a single
+     * walk over the history.
+     *
+     * @return the git metadata, or null if the files are not in a git work tree
+     */
+    private GitMetadataService openGitMetadata(List<File> javaFiles) {
+        File start = javaFiles.get(0).getAbsoluteFile().getParentFile();
+        try {
+            GitMetadataService service = GitMetadataService.open(start);
+            if (service == null) {
+                getLog().info(String.format("No git repository found for [%s]", start));
+            }
+            return service;
+        } catch (IOException e) {
+            getLog().error(String.format("can not get git information from [%s]: [%s]", start, e.getMessage()));
+            return null;
         }
-        return text;
     }
 
-    private String getDescription(String source) {
-        int i = source.indexOf("/**");
-        int j = source.indexOf("public class") - 2;
-
-        if (i > 0 && i < j) {
-            String javadoc = source.substring(i + 3, j);
-
-            javadoc = javadoc.trim();
-            javadoc = javadoc.replaceAll("\\r|\\n", "");
-            javadoc = javadoc.replaceAll("\\s\\*|\\*\\s", "");
-            javadoc = javadoc.replaceAll("\\*/", "");
-            javadoc = javadoc.replaceAll("/", "");
-            return javadoc;
+    private String getGitInformation(File file, Log log) {
+        if (gitMetadata == null) {
+            return "";
         }
-        return "";
-    }
-
-    private String getFullClassName(String source) {
-        String packageName = patternMatches(source, PACKAGE_PATTERN, 1);
-        packageName = Strings.isNullOrEmpty(packageName) ? packageName : packageName.concat(".");
-        String className = patternMatches(source, CLASSNAME_PATTERN, 2);
-
-        return packageName.concat(className).trim();
+        GitMetadataService.CommitInfo commit = gitMetadata.getLastCommit(file);
+        if (commit == null) {
+            log.info("Did not find expected file '" + file + "' in git repository '" + gitMetadata.getWorkTree() + "'");
+            return "";
+        }
+        String time = LocalDateTime.ofEpochSecond(commit.getCommitTime(), 0, ZoneOffset.UTC).toString();
+        return String.format("\tLast updated By %s on %s", commit.getAuthor(), time);
     }
 
     /**
@@ -711,6 +2175,10 @@ public class RestPlugin extends AbstractMojo {
         return endpoint;
     }
 
+    public void setEndpoint(URI endpoint) {
+        this.endpoint = endpoint;
+    }
+
     /**
      * @return the resource
      */
@@ -718,6 +2186,10 @@ public class RestPlugin extends AbstractMojo {
         return resource;
     }
 
+    public void setResource(String resource) {
+        this.resource = resource;
+    }
+
     /**
      * @return the filesets
      */
@@ -732,6 +2204,10 @@ public class RestPlugin extends AbstractMojo {
         return fileset;
     }
 
+    public void setFileset(FileSet fileset) {
+        this.fileset = fileset;
+    }
+
     /**
      * @return the outputDir
      */
@@ -739,6 +2215,10 @@ public class RestPlugin extends AbstractMojo {
         return outputDir;
     }
 
+    public void setOutputDir(File outputDir) {
+        this.outputDir = outputDir;
+    }
+
     /**
      * @return the outputFilename
      */
@@ -753,6 +2233,10 @@ public class RestPlugin extends AbstractMojo {
         return requestType;
     }
 
+    public void setRequestType(MediaType requestType) {
+        this.requestType = requestType;
+    }
+
     /**
      * @return the responseType
      */
@@ -774,6 +2258,10 @@ public class RestPlugin extends AbstractMojo {
         return headers;
     }
 
+    public void setHeaders(Map<String, String> headers) {
+        this.headers = headers;
+    }
+
     /**
      * @return the fileMapper
      */
@@ -855,4 +2343,368 @@ public class RestPlugin extends AbstractMojo {
     public void setJavaFile(String javaFile) {
         this.javaFile = javaFile;
     }
+
+    /**
+     * @return the maximum number of concurrent requests
+     */
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    public boolean isAdaptiveConcurrency() {
+        return adaptiveConcurrency;
+    }
+
+    public void setAdaptiveConcurrency(boolean adaptiveConcurrency) {
+        this.adaptiveConcurrency = adaptiveConcurrency;
+    }
+
+    public double getLatencyTolerance() {
+        return latencyTolerance;
+    }
+
+    public void setLatencyTolerance(double latencyTolerance) {
+        this.latencyTolerance = latencyTolerance;
+    }
+
+    public double getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    public void setRequestsPerSecond(double requestsPerSecond) {
+        this.requestsPerSecond = requestsPerSecond;
+    }
+
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    public void setBytesPerSecond(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    /**
+     * @return the number of conversion threads, 0 for one per processor
+     */
+    public int getConversionThreads() {
+        return conversionThreads;
+    }
+
+    public void setConversionThreads(int conversionThreads) {
+        this.conversionThreads = conversionThreads;
+    }
+
+    public boolean isScriptCache() {
+        return scriptCache;
+    }
+
+    public void setScriptCache(boolean scriptCache) {
+        this.scriptCache = scriptCache;
+    }
+
+    /**
+     * @return the directory of the cache of the converted scripts
+     */
+    public File getScriptCacheDir() {
+        if (scriptCacheDir == null) {
+            return new File(System.getProperty("user.home"), ".m2/rest-maven-plugin/script-cache");
+        }
+        return scriptCacheDir;
+    }
+
+    public void setScriptCacheDir(File scriptCacheDir) {
+        this.scriptCacheDir = scriptCacheDir;
+    }
+
+    public long getScriptCacheMaxSize() {
+        return scriptCacheMaxSize;
+    }
+
+    public void setScriptCacheMaxSize(long scriptCacheMaxSize) {
+        this.scriptCacheMaxSize = scriptCacheMaxSize;
+    }
+
+    /**
+     * @return the connector
+     */
+    public String getConnector() {
+        return connector;
+    }
+
+    public void setConnector(String connector) {
+        this.connector = connector;
+    }
+
+    /**
+     * @return the maximum number of pooled connections per route
+     */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    /**
+     * @return true if connections are kept alive
+     */
+    public boolean isKeepAlive() {
+        return keepAlive;
+    }
+
+    public void setKeepAlive(boolean keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    /**
+     * @return the connect timeout in milliseconds
+     */
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    /**
+     * @return the read timeout in milliseconds
+     */
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    public void setReadTimeout(int readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * @return the socket buffer size in bytes
+     */
+    public int getSocketBufferSize() {
+        return socketBufferSize;
+    }
+
+    public void setSocketBufferSize(int socketBufferSize) {
+        this.socketBufferSize = socketBufferSize;
+    }
+
+    public String getRequestCompression() {
+        return requestCompression;
+    }
+
+    public void setRequestCompression(String requestCompression) {
+        this.requestCompression = requestCompression;
+    }
+
+    /**
+     * @return true if only the changes since the last run are processed
+     */
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    /**
+     * @return the manifest file of the incremental mode
+     */
+    public File getManifestFile() {
+        if (manifestFile == null) {
+            File base = getTarget() != null ? getTarget() : getOutputDir();
+            return new File(base, "rest-maven-plugin/manifest.json");
+        }
+        return manifestFile;
+    }
+
+    public void setManifestFile(File manifestFile) {
+        this.manifestFile = manifestFile;
+    }
+
+    public boolean isResume() {
+        return resume;
+    }
+
+    public void setResume(boolean resume) {
+        this.resume = resume;
+    }
+
+    /**
+     * @return the journal file of the deployment
+     */
+    public File getJournalFile() {
+        if (journalFile == null) {
+            File base = getTarget() != null ? getTarget() : getOutputDir();
+            return new File(base, "rest-maven-plugin/journal.log");
+        }
+        return journalFile;
+    }
+
+    public void setJournalFile(File journalFile) {
+        this.journalFile = journalFile;
+    }
+
+    public long getJournalSyncInterval() {
+        return journalSyncInterval;
+    }
+
+    public void setJournalSyncInterval(long journalSyncInterval) {
+        this.journalSyncInterval = journalSyncInterval;
+    }
+
+    /**
+     * @return true if the files are sent in batches
+     */
+    public boolean isBatchMode() {
+        return getBatchSize() > 1;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getBatchMaxBytes() {
+        return batchMaxBytes;
+    }
+
+    public void setBatchMaxBytes(long batchMaxBytes) {
+        this.batchMaxBytes = batchMaxBytes;
+    }
+
+    public String getBatchResource() {
+        return batchResource;
+    }
+
+    public void setBatchResource(String batchResource) {
+        this.batchResource = batchResource;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    public List<Integer> getRetryStatuses() {
+        return retryStatuses;
+    }
+
+    public void setRetryStatuses(List<Integer> retryStatuses) {
+        this.retryStatuses = retryStatuses;
+    }
+
+    public long getRetryBackoff() {
+        return retryBackoff;
+    }
+
+    public void setRetryBackoff(long retryBackoff) {
+        this.retryBackoff = retryBackoff;
+    }
+
+    public long getRetryMaxBackoff() {
+        return retryMaxBackoff;
+    }
+
+    public void setRetryMaxBackoff(long retryMaxBackoff) {
+        this.retryMaxBackoff = retryMaxBackoff;
+    }
+
+    public int getCircuitBreakerThreshold() {
+        return circuitBreakerThreshold;
+    }
+
+    public void setCircuitBreakerThreshold(int circuitBreakerThreshold) {
+        this.circuitBreakerThreshold = circuitBreakerThreshold;
+    }
+
+    public long getCircuitBreakerOpenTime() {
+        return circuitBreakerOpenTime;
+    }
+
+    public void setCircuitBreakerOpenTime(long circuitBreakerOpenTime) {
+        this.circuitBreakerOpenTime = circuitBreakerOpenTime;
+    }
+
+    public List<Endpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    public void setEndpoints(List<Endpoint> endpoints) {
+        this.endpoints = endpoints;
+    }
+
+    public int getQuorum() {
+        return quorum;
+    }
+
+    public void setQuorum(int quorum) {
+        this.quorum = quorum;
+    }
+
+    public boolean isCompressResponse() {
+        return compressResponse;
+    }
+
+    public void setCompressResponse(boolean compressResponse) {
+        this.compressResponse = compressResponse;
+    }
+
+    public int getErrorBodyLimit() {
+        return errorBodyLimit;
+    }
+
+    public void setErrorBodyLimit(int errorBodyLimit) {
+        this.errorBodyLimit = errorBodyLimit;
+    }
+
+    public boolean isInMemory() {
+        return inMemory;
+    }
+
+    public void setInMemory(boolean inMemory) {
+        this.inMemory = inMemory;
+    }
+
+    public boolean isMirrorToDisk() {
+        return mirrorToDisk;
+    }
+
+    public void setMirrorToDisk(boolean mirrorToDisk) {
+        this.mirrorToDisk = mirrorToDisk;
+    }
+
+    public boolean isDependencyOrder() {
+        return dependencyOrder;
+    }
+
+    public void setDependencyOrder(boolean dependencyOrder) {
+        this.dependencyOrder = dependencyOrder;
+    }
+
+    /**
+     * @return the directory of the deploy reports, null to write none
+     */
+    public File getReportDir() {
+        if (reportDir == null && getTarget() != null) {
+            return new File(getTarget(), "rest-reports");
+        }
+        return reportDir;
+    }
+
+    public void setReportDir(File reportDir) {
+        this.reportDir = reportDir;
+    }
 }
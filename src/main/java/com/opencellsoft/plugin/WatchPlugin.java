@@ -0,0 +1,86 @@
+package com.opencellsoft.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.ws.rs.client.Client;
+
+import com.opencellsoft.utils.SourceWatcher;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * {@link WatchPlugin} class
+ * <p>
+ * Watch the java files of the <code>inputDir</code> and the
+ * <code>javaFile</code>, and deploy the script of every file created or
+ * modified, until the build is stopped. Only the changed files are converted,
+ * and the requests reuse the client, and its connections, of the previous
+ * deployments. A failed deployment is logged, and the watch goes on.
+ * <p>
+ * Every parameter of the <code>rest-request</code> goal applies.
+ *
+ * @author mohammed stitane
+ */
+@Mojo(name = "watch", threadSafe = true)
+public class WatchPlugin extends RestPlugin {
+
+    /**
+     * The time in milliseconds without any change after which the changed
+     * files are deployed.
+     * <p>
+     * Defaults to <code>300</code>
+     */
+    @Parameter(property = "debounce", defaultValue = "300")
+    private long debounce = 300;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        List<File> roots = new ArrayList<>();
+        if (getInputDir() != null && resolveFile(getInputDir()).isDirectory()) {
+            roots.add(resolveFile(getInputDir()));
+        }
+        List<File> files = new ArrayList<>();
+        if (getJavaFile() != null && resolveFile(getJavaFile()).isFile()) {
+            files.add(resolveFile(getJavaFile()));
+        }
+        if (roots.isEmpty() && files.isEmpty()) {
+            throw new MojoExecutionException("Nothing to watch: inputDir and javaFile are not set or do not exist");
+        }
+
+        Client client = newClient();
+        try (SourceWatcher watcher = new SourceWatcher(roots, files, getDebounce())) {
+            getLog().info(String.format("Watching %s%s, stop with Ctrl+C", roots, files));
+            while (!Thread.currentThread().isInterrupted()) {
+                List<File> changed = watcher.take();
+                getLog().info(String.format("Deploying %d changed file(s): %s", changed.size(), changed));
+                long start = System.nanoTime();
+                try {
+                    redeploy(client, changed);
+                    getLog().info(String.format("Deployed in %d ms", (System.nanoTime() - start) / 1000000));
+                } catch (MojoExecutionException e) {
+                    getLog().error(e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException(String.format("Unable to watch the java files: [%s]", e.getMessage()), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            getLog().info("Watch stopped");
+        } finally {
+            releaseClient(client);
+        }
+    }
+
+    public long getDebounce() {
+        return debounce;
+    }
+
+    public void setDebounce(long debounce) {
+        this.debounce = debounce;
+    }
+}
@@ -0,0 +1,220 @@
+package com.opencellsoft.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.ws.rs.core.StreamingOutput;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * {@link BatchRequest} class
+ * <p>
+ * A group of JSON files sent in a single request, as a JSON array of their
+ * contents, to a resource accepting bulk creation.
+ * <p>
+ * The per-item results are read from the response when it is a JSON array
+ * of objects, or a JSON object holding such an array. An element is
+ * successful when its <code>status</code> is <code>SUCCESS</code> or a 2xx
+ * code, otherwise its <code>message</code> is reported. Every file fails when
+ * the top-level <code>status</code> or <code>actionStatus.status</code> of
+ * the response is <code>FAIL</code>, as Opencell answers a rejected request,
+ * or when the array does not hold one element per file. When the response does not hold
+ * per-item results, the status of the response applies to every file.
+ *
+ * @author mohammed stitane
+ */
+public class BatchRequest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final String name;
+    private final List<File> files = new ArrayList<>();
+    private long bytes;
+
+    public BatchRequest(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Split files into batches, keeping their order.
+     *
+     * @param files    the files to send
+     * @param maxCount the maximum number of files per batch
+     * @param maxBytes the maximum size of the files of a batch, 0 for no
+     *                 limit. A file bigger than the limit is sent alone.
+     * @param content  the content of the files
+     * @return the batches
+     */
+    public static List<BatchRequest> split(List<File> files, int maxCount, long maxBytes, FileContent content) {
+        List<BatchRequest> batches = new ArrayList<>();
+        BatchRequest batch = null;
+        for (File file : files) {
+            long size = content.size(file);
+            boolean full = batch == null || batch.size() >= maxCount || (maxBytes > 0 && batch.bytes + size > maxBytes);
+            if (full) {
+                batch = new BatchRequest("batch-" + (batches.size() + 1));
+                batches.add(batch);
+            }
+            batch.files.add(file);
+            batch.bytes += size;
+        }
+        return batches;
+    }
+
+    /**
+     * @param content the content of the files
+     * @return the JSON array of the file contents, streamed from the files
+     */
+    public StreamingOutput toEntity(FileContent content) {
+        return out -> {
+            out.write('[');
+            for (int i = 0; i < files.size(); i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                content.writeTo(files.get(i), out);
+            }
+            out.write(']');
+        };
+    }
+
+    /**
+     * Map the response of the batch to the result of each file.
+     *
+     * @param status the HTTP status of the response
+     * @param body   the body of the response
+     * @return one element per file, null for a successful file
+     */
+    public List<ErrorInfo> mapResults(int status, byte[] body) {
+        if (status < 200 || status >= 300) {
+            String message = body == null ? "" : new String(body, StandardCharsets.UTF_8);
+            return Collections.nCopies(files.size(), new ErrorInfo(status, message));
+        }
+        JsonNode root = parse(body);
+        ErrorInfo failure = failure(root);
+        if (failure != null) {
+            return Collections.nCopies(files.size(), failure);
+        }
+        JsonNode items = findItems(root);
+        if (items != null && items.size() != files.size()) {
+            ErrorInfo error = new ErrorInfo(status, String.format("The response holds %d result(s) for %d file(s)", items.size(), files.size()));
+            return Collections.nCopies(files.size(), error);
+        }
+        List<ErrorInfo> results = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            results.add(items == null ? null : itemError(items.get(i)));
+        }
+        return results;
+    }
+
+    private static JsonNode parse(byte[] body) {
+        if (body == null || body.length == 0) {
+            return null;
+        }
+        try {
+            return MAPPER.readTree(body);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Opencell answers a rejected request with a 2xx status and a
+     * <code>FAIL</code> status in the body, in its <code>actionStatus</code>
+     * or at the top level.
+     *
+     * @return the error of the whole response, null if it did not fail
+     */
+    private static ErrorInfo failure(JsonNode root) {
+        if (root == null || !root.isObject()) {
+            return null;
+        }
+        JsonNode actionStatus = root.get("actionStatus");
+        JsonNode result = actionStatus != null && actionStatus.isObject() ? actionStatus : root;
+        JsonNode status = result.get("status");
+        if (status == null) {
+            return null;
+        }
+        if (status.isNumber()) {
+            return itemError(result);
+        }
+        return "FAIL".equalsIgnoreCase(status.asText()) ? new ErrorInfo(message(result)) : null;
+    }
+
+    private static JsonNode findItems(JsonNode root) {
+        if (isItems(root)) {
+            return root;
+        }
+        if (root != null && root.isObject()) {
+            for (Iterator<JsonNode> it = root.elements(); it.hasNext();) {
+                JsonNode field = it.next();
+                if (isItems(field)) {
+                    return field;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return true for a non empty array of objects
+     */
+    private static boolean isItems(JsonNode node) {
+        if (node == null || !node.isArray() || node.size() == 0) {
+            return false;
+        }
+        for (JsonNode item : node) {
+            if (!item.isObject()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the error of a result, null when it is successful or has no
+     *         status
+     */
+    private static ErrorInfo itemError(JsonNode item) {
+        JsonNode status = item.get("status");
+        if (status == null) {
+            return null;
+        }
+        if (status.isNumber()) {
+            int code = status.asInt();
+            return code >= 200 && code < 300 ? null : new ErrorInfo(code, message(item));
+        }
+        return "SUCCESS".equalsIgnoreCase(status.asText()) ? null : new ErrorInfo(message(item));
+    }
+
+    private static String message(JsonNode item) {
+        JsonNode message = item.get("message");
+        return message == null ? item.toString() : message.asText();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<File> getFiles() {
+        return files;
+    }
+
+    public int size() {
+        return files.size();
+    }
+
+    /**
+     * @return the total size of the files, in bytes
+     */
+    public long getBytes() {
+        return bytes;
+    }
+}
@@ -0,0 +1,182 @@
+package com.opencellsoft.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * {@link BufferedLog} class
+ * <p>
+ * A {@link Log} that keeps its messages in memory until {@link #flush()} is
+ * called, so that work done on worker threads is reported in a deterministic
+ * order by the thread owning the delegate log.
+ *
+ * @author mohammed stitane
+ */
+public class BufferedLog implements Log {
+
+    private enum Level {
+        DEBUG, INFO, WARN, ERROR
+    }
+
+    private static final class Entry {
+        private final Level level;
+        private final CharSequence content;
+        private final Throwable error;
+
+        private Entry(Level level, CharSequence content, Throwable error) {
+            this.level = level;
+            this.content = content;
+            this.error = error;
+        }
+    }
+
+    private final Log delegate;
+    private final List<Entry> entries = new ArrayList<>();
+
+    public BufferedLog(Log delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Replay all buffered messages on the delegate log, then clear the buffer.
+     */
+    public synchronized void flush() {
+        for (Entry entry : entries) {
+            replay(entry);
+        }
+        entries.clear();
+    }
+
+    private void replay(Entry entry) {
+        switch (entry.level) {
+            case DEBUG:
+                if (entry.error == null) {
+                    delegate.debug(entry.content);
+                } else if (entry.content == null) {
+                    delegate.debug(entry.error);
+                } else {
+                    delegate.debug(entry.content, entry.error);
+                }
+                break;
+            case INFO:
+                if (entry.error == null) {
+                    delegate.info(entry.content);
+                } else if (entry.content == null) {
+                    delegate.info(entry.error);
+                } else {
+                    delegate.info(entry.content, entry.error);
+                }
+                break;
+            case WARN:
+                if (entry.error == null) {
+                    delegate.warn(entry.content);
+                } else if (entry.content == null) {
+                    delegate.warn(entry.error);
+                } else {
+                    delegate.warn(entry.content, entry.error);
+                }
+                break;
+            default:
+                if (entry.error == null) {
+                    delegate.error(entry.content);
+                } else if (entry.content == null) {
+                    delegate.error(entry.error);
+                } else {
+                    delegate.error(entry.content, entry.error);
+                }
+                break;
+        }
+    }
+
+    private synchronized void add(Level level, CharSequence content, Throwable error) {
+        entries.add(new Entry(level, content, error));
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+        return delegate.isDebugEnabled();
+    }
+
+    @Override
+    public void debug(CharSequence content) {
+        if (isDebugEnabled()) {
+            add(Level.DEBUG, content, null);
+        }
+    }
+
+    @Override
+    public void debug(CharSequence content, Throwable error) {
+        if (isDebugEnabled()) {
+            add(Level.DEBUG, content, error);
+        }
+    }
+
+    @Override
+    public void debug(Throwable error) {
+        if (isDebugEnabled()) {
+            add(Level.DEBUG, null, error);
+        }
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+        return delegate.isInfoEnabled();
+    }
+
+    @Override
+    public void info(CharSequence content) {
+        add(Level.INFO, content, null);
+    }
+
+    @Override
+    public void info(CharSequence content, Throwable error) {
+        add(Level.INFO, content, error);
+    }
+
+    @Override
+    public void info(Throwable error) {
+        add(Level.INFO, null, error);
+    }
+
+    @Override
+    public boolean isWarnEnabled() {
+        return delegate.isWarnEnabled();
+    }
+
+    @Override
+    public void warn(CharSequence content) {
+        add(Level.WARN, content, null);
+    }
+
+    @Override
+    public void warn(CharSequence content, Throwable error) {
+        add(Level.WARN, content, error);
+    }
+
+    @Override
+    public void warn(Throwable error) {
+        add(Level.WARN, null, error);
+    }
+
+    @Override
+    public boolean isErrorEnabled() {
+        return delegate.isErrorEnabled();
+    }
+
+    @Override
+    public void error(CharSequence content) {
+        add(Level.ERROR, content, null);
+    }
+
+    @Override
+    public void error(CharSequence content, Throwable error) {
+        add(Level.ERROR, content, error);
+    }
+
+    @Override
+    public void error(Throwable error) {
+        add(Level.ERROR, null, error);
+    }
+}
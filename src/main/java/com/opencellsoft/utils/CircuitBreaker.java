@@ -0,0 +1,89 @@
+package com.opencellsoft.utils;
+
+/**
+ * {@link CircuitBreaker} class
+ * <p>
+ * Stop sending requests to an endpoint which keeps failing. After
+ * <code>threshold</code> consecutive failures the circuit opens, and requests
+ * are rejected without being sent for <code>openTime</code> milliseconds.
+ * Then a single trial request is let through: the circuit closes if it
+ * succeeds, and opens again if it fails.
+ * <p>
+ * The circuit is shared by all the threads sending requests to the endpoint.
+ *
+ * @author mohammed stitane
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int threshold;
+    private final long openTime;
+
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    /**
+     * @param threshold the number of consecutive failures opening the circuit,
+     *                  0 to never open it
+     * @param openTime  how long the circuit stays open, in milliseconds
+     */
+    public CircuitBreaker(int threshold, long openTime) {
+        this.threshold = threshold;
+        this.openTime = openTime;
+    }
+
+    /**
+     * @return true if a request can be sent, false if the circuit is open
+     */
+    public synchronized boolean allowRequest() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (now() - openedAt < openTime) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                trialInFlight = true;
+                return true;
+            default:
+                if (trialInFlight) {
+                    return false;
+                }
+                trialInFlight = true;
+                return true;
+        }
+    }
+
+    public synchronized void recordSuccess() {
+        state = State.CLOSED;
+        failures = 0;
+        trialInFlight = false;
+    }
+
+    public synchronized void recordFailure() {
+        failures++;
+        trialInFlight = false;
+        if (threshold > 0 && (state == State.HALF_OPEN || failures >= threshold)) {
+            state = State.OPEN;
+            openedAt = now();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    protected long now() {
+        return System.currentTimeMillis();
+    }
+}
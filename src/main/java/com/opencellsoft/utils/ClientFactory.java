@@ -0,0 +1,247 @@
+package com.opencellsoft.utils;
+
+import java.util.Locale;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientRequestFilter;
+
+import org.apache.http.config.SocketConfig;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.glassfish.jersey.apache.connector.ApacheClientProperties;
+import org.glassfish.jersey.apache.connector.ApacheConnectorProvider;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.RequestEntityProcessing;
+import org.glassfish.jersey.client.spi.ConnectorProvider;
+import org.glassfish.jersey.client.filter.EncodingFilter;
+import org.glassfish.jersey.grizzly.connector.GrizzlyConnectorProvider;
+import org.glassfish.jersey.jetty.connector.JettyConnectorProvider;
+import org.glassfish.jersey.message.DeflateEncoder;
+import org.glassfish.jersey.message.GZipEncoder;
+
+/**
+ * {@link ClientFactory} class
+ * <p>
+ * Build the JAX-RS {@link Client} used to send the REST requests, on top of
+ * one of the Jersey connectors shipped with the plugin:
+ * <ul>
+ * <li><code>default</code>: the JDK <code>HttpURLConnection</code>, pooling
+ * and keep-alive are driven by the <code>http.keepAlive</code> and
+ * <code>http.maxConnections</code> system properties, so it can not disable
+ * <code>keepAlive</code></li>
+ * <li><code>apache</code>: Apache HttpClient with a pooled connection
+ * manager</li>
+ * <li><code>grizzly</code>: Grizzly async HTTP client with connection
+ * pooling</li>
+ * <li><code>jetty</code>: Jetty HTTP client</li>
+ * <li><code>http2</code>: the JDK 11 <code>HttpClient</code>, multiplexing the
+ * requests over a single HTTP/2 connection per server, only available when
+ * the plugin is built and run on Java 11 or later</li>
+ * </ul>
+ * <p>
+ * Request bodies can be compressed with <code>gzip</code> or
+ * <code>deflate</code>: the body is encoded while it is streamed, with a
+ * <code>Content-Encoding</code> header and chunked transfer encoding, and
+ * compressed responses are accepted and decoded.
+ *
+ * @author mohammed stitane
+ */
+public class ClientFactory {
+
+    public static final String DEFAULT_CONNECTOR = "default";
+    public static final String APACHE_CONNECTOR = "apache";
+    public static final String GRIZZLY_CONNECTOR = "grizzly";
+    public static final String JETTY_CONNECTOR = "jetty";
+    public static final String HTTP2_CONNECTOR = "http2";
+
+    /**
+     * Compiled for Java 11 only, into <code>META-INF/versions/11</code>, so it
+     * is loaded by name.
+     */
+    private static final String HTTP2_CONNECTOR_PROVIDER = "com.opencellsoft.utils.Http2ConnectorProvider";
+
+    public static final String NO_COMPRESSION = "none";
+    public static final String GZIP_COMPRESSION = "gzip";
+    public static final String DEFLATE_COMPRESSION = "deflate";
+
+    /**
+     * Ask the server to close the connection after each request.
+     */
+    private static final class ConnectionCloseFilter implements ClientRequestFilter {
+        @Override
+        public void filter(ClientRequestContext request) {
+            request.getHeaders().putSingle("Connection", "close");
+        }
+    }
+
+    private String connector = DEFAULT_CONNECTOR;
+    private int maxConnections = 20;
+    private boolean keepAlive = true;
+    private int connectTimeout;
+    private int readTimeout;
+    private int socketBufferSize;
+    private String requestCompression = NO_COMPRESSION;
+
+    /**
+     * Create a new client for the configured connector.
+     *
+     * @return a new client, which must be closed by the caller
+     * @throws MojoExecutionException if the connector is unknown, or can not
+     *                                close the connections after each request
+     *                                when <code>keepAlive</code> is disabled
+     */
+    public Client newClient() throws MojoExecutionException {
+        String name = getConnector().toLowerCase(Locale.ROOT);
+        if (!keepAlive && (DEFAULT_CONNECTOR.equals(name) || HTTP2_CONNECTOR.equals(name))) {
+            // both JDK clients drop the restricted Connection header
+            throw new MojoExecutionException(String.format("The [%s] connector always keeps the connections alive, use the [%s], [%s] or [%s] connector "
+                    + "to disable keepAlive", name, APACHE_CONNECTOR, GRIZZLY_CONNECTOR, JETTY_CONNECTOR));
+        }
+        ClientConfig config = new ClientConfig();
+        config.property(ClientProperties.CONNECT_TIMEOUT, connectTimeout);
+        config.property(ClientProperties.READ_TIMEOUT, readTimeout);
+        if (!keepAlive) {
+            config.register(new ConnectionCloseFilter());
+        }
+        configureCompression(config);
+        config.register(MetricsInterceptor.class);
+
+        switch (name) {
+            case DEFAULT_CONNECTOR:
+                return ClientBuilder.newClient(config);
+            case APACHE_CONNECTOR:
+                config.connectorProvider(new ApacheConnectorProvider());
+                config.property(ApacheClientProperties.CONNECTION_MANAGER, newConnectionManager());
+                return ClientBuilder.newClient(config);
+            case GRIZZLY_CONNECTOR:
+                config.connectorProvider(new GrizzlyConnectorProvider((client, configuration, builder) -> builder
+                        .setMaxConnectionsPerHost(maxConnections)
+                        .setMaxConnections(maxConnections)
+                        .setAllowPoolingConnections(keepAlive)
+                        .setAllowPoolingSslConnections(keepAlive)));
+                return ClientBuilder.newClient(config);
+            case JETTY_CONNECTOR:
+                config.connectorProvider(new JettyConnectorProvider());
+                Client client = ClientBuilder.newClient(config);
+                org.eclipse.jetty.client.HttpClient httpClient = JettyConnectorProvider.getHttpClient(client);
+                httpClient.setMaxConnectionsPerDestination(maxConnections);
+                if (socketBufferSize > 0) {
+                    httpClient.setRequestBufferSize(socketBufferSize);
+                    httpClient.setResponseBufferSize(socketBufferSize);
+                }
+                return client;
+            case HTTP2_CONNECTOR:
+                config.connectorProvider(newHttp2ConnectorProvider());
+                return ClientBuilder.newClient(config);
+            default:
+                throw new MojoExecutionException(String.format("Unknown connector [%s], expected one of [%s, %s, %s, %s, %s]", getConnector(),
+                        DEFAULT_CONNECTOR, APACHE_CONNECTOR, GRIZZLY_CONNECTOR, JETTY_CONNECTOR, HTTP2_CONNECTOR));
+        }
+    }
+
+    private static ConnectorProvider newHttp2ConnectorProvider() throws MojoExecutionException {
+        try {
+            return (ConnectorProvider) Class.forName(HTTP2_CONNECTOR_PROVIDER).getConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError ex) {
+            throw new MojoExecutionException(String.format("The [%s] connector requires the plugin to be built and run on Java 11 or later: [%s]",
+                    HTTP2_CONNECTOR, ex), ex);
+        }
+    }
+
+    private void configureCompression(ClientConfig config) throws MojoExecutionException {
+        String encoding = getRequestCompression().toLowerCase(Locale.ROOT);
+        switch (encoding) {
+            case NO_COMPRESSION:
+                return;
+            case GZIP_COMPRESSION:
+            case DEFLATE_COMPRESSION:
+                config.register(GZipEncoder.class);
+                config.register(DeflateEncoder.class);
+                config.register(EncodingFilter.class);
+                config.property(ClientProperties.USE_ENCODING, encoding);
+                // stream the encoded body instead of buffering it to compute its length
+                config.property(ClientProperties.REQUEST_ENTITY_PROCESSING, RequestEntityProcessing.CHUNKED);
+                return;
+            default:
+                throw new MojoExecutionException(String.format("Unknown request compression [%s], expected one of [%s, %s, %s]", getRequestCompression(),
+                        NO_COMPRESSION, GZIP_COMPRESSION, DEFLATE_COMPRESSION));
+        }
+    }
+
+    private PoolingHttpClientConnectionManager newConnectionManager() {
+        PoolingHttpClientConnectionManager manager = new PoolingHttpClientConnectionManager();
+        manager.setMaxTotal(maxConnections);
+        manager.setDefaultMaxPerRoute(maxConnections);
+        SocketConfig.Builder socketConfig = SocketConfig.custom().setTcpNoDelay(true).setSoKeepAlive(keepAlive);
+        if (socketBufferSize > 0) {
+            socketConfig.setSndBufSize(socketBufferSize).setRcvBufSize(socketBufferSize);
+        }
+        manager.setDefaultSocketConfig(socketConfig.build());
+        return manager;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (maxConnections=%d, keepAlive=%s, connectTimeout=%d, readTimeout=%d, socketBufferSize=%d, requestCompression=%s)",
+                connector, maxConnections, keepAlive, connectTimeout, readTimeout, socketBufferSize, getRequestCompression());
+    }
+
+    public String getConnector() {
+        return connector == null ? DEFAULT_CONNECTOR : connector;
+    }
+
+    public void setConnector(String connector) {
+        this.connector = connector;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public boolean isKeepAlive() {
+        return keepAlive;
+    }
+
+    public void setKeepAlive(boolean keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    public void setReadTimeout(int readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    public int getSocketBufferSize() {
+        return socketBufferSize;
+    }
+
+    public void setSocketBufferSize(int socketBufferSize) {
+        this.socketBufferSize = socketBufferSize;
+    }
+
+    public String getRequestCompression() {
+        return requestCompression == null ? NO_COMPRESSION : requestCompression;
+    }
+
+    public void setRequestCompression(String requestCompression) {
+        this.requestCompression = requestCompression;
+    }
+}
@@ -0,0 +1,75 @@
+package com.opencellsoft.utils;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import javax.ws.rs.client.Client;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * {@link ClientPool} class
+ * <p>
+ * The clients shared by the executions of the plugin in the same build, so
+ * the modules of a reactor built in parallel (<code>-T</code>) send their
+ * requests over a single pool of connections. A client is shared by the
+ * executions configuring the same {@link ClientFactory}, and closed when the
+ * last one releases it.
+ *
+ * @author mohammed stitane
+ */
+public final class ClientPool {
+
+    private static final class Shared {
+        private final Client client;
+        private int references;
+
+        private Shared(Client client) {
+            this.client = client;
+        }
+    }
+
+    private static final Map<String, Shared> CLIENTS = new HashMap<>();
+    private static final Map<Client, String> KEYS = new IdentityHashMap<>();
+
+    private ClientPool() {
+    }
+
+    /**
+     * @param factory the configuration of the client
+     * @return the client shared by the executions with the same configuration,
+     *         to be released with {@link #release(Client)}
+     * @throws MojoExecutionException if the connector is unknown
+     */
+    public static synchronized Client acquire(ClientFactory factory) throws MojoExecutionException {
+        String key = factory.toString();
+        Shared shared = CLIENTS.get(key);
+        if (shared == null) {
+            shared = new Shared(factory.newClient());
+            CLIENTS.put(key, shared);
+            KEYS.put(shared.client, key);
+        }
+        shared.references++;
+        return shared.client;
+    }
+
+    /**
+     * Release a client, closed once no execution uses it anymore.
+     *
+     * @param client a client from {@link #acquire(ClientFactory)}
+     */
+    public static synchronized void release(Client client) {
+        String key = KEYS.get(client);
+        if (key == null) {
+            client.close();
+            return;
+        }
+        Shared shared = CLIENTS.get(key);
+        if (--shared.references == 0) {
+            CLIENTS.remove(key);
+            KEYS.remove(client);
+            client.close();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.opencellsoft.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link ConcurrencyLimiter} class
+ * <p>
+ * Bound the number of requests in flight to an endpoint with a limit adapted
+ * to the latency observed on the server, in the way of the TCP congestion
+ * control (AIMD):
+ * <ul>
+ * <li>the limit starts at 1 and doubles after each window of requests until
+ * the latency starts rising or the first decrease (slow start), then grows
+ * by 1 per window, as long as the window used the whole limit and its
+ * latency stays flat;</li>
+ * <li>it is halved when a request is rejected by the server as overloaded
+ * (<code>429</code>, <code>503</code> or a transport failure), at most once
+ * per window;</li>
+ * <li>it is reduced by a quarter when the p95 latency of a window exceeds
+ * <code>tolerance</code> times the baseline latency: the lowest p95 latency
+ * of the previous windows, slowly raised toward the latest ones so a lasting
+ * change of the server is accepted.</li>
+ * </ul>
+ * A window holds as many requests as the limit, with a minimum of
+ * {@link #MIN_WINDOW}, the rejected ones included. The limit is shared by all the threads sending
+ * requests to the endpoint.
+ *
+ * @author mohammed stitane
+ */
+public class ConcurrencyLimiter {
+
+    public static final int MIN_WINDOW = 8;
+
+    private static final double BASELINE_WEIGHT = 0.1;
+
+    private static final double SLOW_START_EXIT = 1.25;
+
+    private final int maxLimit;
+    private final double tolerance;
+
+    private int limit = 1;
+    private int inFlight;
+    private boolean slowStart = true;
+    private boolean decreased;
+    private boolean saturated;
+    private double baseline;
+    private final List<Long> window = new ArrayList<>();
+    private int rejected;
+
+    /**
+     * @param maxLimit  the maximum number of requests in flight
+     * @param tolerance the ratio of the p95 latency of a window to the
+     *                  baseline latency above which the limit is reduced
+     */
+    public ConcurrencyLimiter(int maxLimit, double tolerance) {
+        this.maxLimit = Math.max(1, maxLimit);
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Wait until a request can be sent.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public synchronized void acquire() throws InterruptedException {
+        while (inFlight >= limit) {
+            wait();
+        }
+        inFlight++;
+        saturated |= inFlight >= limit;
+    }
+
+    /**
+     * Record the end of a request sent after {@link #acquire()}.
+     *
+     * @param latencyNanos the time to the response of the request
+     * @param overloaded   true if the server rejected the request as
+     *                     overloaded
+     */
+    public synchronized void release(long latencyNanos, boolean overloaded) {
+        inFlight--;
+        if (overloaded) {
+            if (!decreased) {
+                setLimit(limit / 2);
+                slowStart = false;
+                decreased = true;
+            }
+            rejected++;
+        } else {
+            window.add(latencyNanos);
+        }
+        if (window.size() + rejected >= Math.max(limit, MIN_WINDOW)) {
+            endWindow();
+        }
+        notifyAll();
+    }
+
+    private void endWindow() {
+        if (!window.isEmpty()) {
+            updateLimit();
+        }
+        window.clear();
+        rejected = 0;
+        decreased = false;
+        saturated = inFlight >= limit;
+    }
+
+    /**
+     * Change the limit according to the latency of the accepted requests of
+     * the window.
+     */
+    private void updateLimit() {
+        Collections.sort(window);
+        double p95 = window.get((int) Math.ceil(0.95 * window.size()) - 1);
+        if (baseline > 0 && p95 > tolerance * baseline) {
+            if (!decreased) {
+                setLimit(limit * 3 / 4);
+                slowStart = false;
+            }
+        } else if (!decreased && saturated) {
+            slowStart &= baseline == 0 || p95 <= SLOW_START_EXIT * baseline;
+            setLimit(slowStart ? limit * 2 : limit + 1);
+        }
+        baseline = baseline == 0 ? p95 : Math.min(p95, baseline + BASELINE_WEIGHT * (p95 - baseline));
+    }
+
+    private void setLimit(int limit) {
+        this.limit = Math.max(1, Math.min(maxLimit, limit));
+    }
+
+    public synchronized int getLimit() {
+        return limit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+}
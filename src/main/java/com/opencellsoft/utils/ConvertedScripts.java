@@ -0,0 +1,104 @@
+package com.opencellsoft.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.ws.rs.core.StreamingOutput;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.opencellsoft.dto.ScriptInstance;
+
+import org.apache.commons.io.output.NullOutputStream;
+
+/**
+ * {@link ConvertedScripts} class
+ * <p>
+ * The scripts converted in the current execution, kept in memory under the
+ * file they are, or would be, written to. Their content is serialized
+ * straight into the request entity, so they are neither written to disk nor
+ * read back to be submitted. Other files are read from disk.
+ *
+ * @author mohammed stitane
+ */
+public class ConvertedScripts implements FileContent {
+
+    private final ObjectWriter writer;
+    private final Map<File, ScriptInstance> scripts = new ConcurrentHashMap<>();
+
+    /**
+     * @param writer the writer serializing a {@link ScriptInstance}
+     */
+    public ConvertedScripts(ObjectWriter writer) {
+        this.writer = writer.without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    /**
+     * @param file   the file the script is, or would be, written to
+     * @param script the converted script
+     */
+    public void put(File file, ScriptInstance script) {
+        scripts.put(file.getAbsoluteFile(), script);
+    }
+
+    /**
+     * @param file a file to submit
+     * @return the script kept for the file, null if it must be read from disk
+     */
+    public ScriptInstance get(File file) {
+        return scripts.get(file.getAbsoluteFile());
+    }
+
+    @Override
+    public Object toEntity(File file) {
+        ScriptInstance script = get(file);
+        if (script == null) {
+            return DISK.toEntity(file);
+        }
+        return (StreamingOutput) out -> writer.writeValue(out, script);
+    }
+
+    /**
+     * The size of a script is estimated from the length of its fields.
+     */
+    @Override
+    public long size(File file) {
+        ScriptInstance script = get(file);
+        if (script == null) {
+            return DISK.size(file);
+        }
+        return 64L + length(script.getCode()) + length(script.getDescription()) + length(script.getType()) + length(script.getScript());
+    }
+
+    private static long length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    @Override
+    public void writeTo(File file, OutputStream out) throws IOException {
+        ScriptInstance script = get(file);
+        if (script == null) {
+            DISK.writeTo(file, out);
+        } else {
+            writer.writeValue(out, script);
+        }
+    }
+
+    @Override
+    public String sha256(File file) throws IOException {
+        ScriptInstance script = get(file);
+        if (script == null) {
+            return DISK.sha256(file);
+        }
+        MessageDigest digest = Digests.newSha256();
+        try (OutputStream out = new DigestOutputStream(new NullOutputStream(), digest)) {
+            writer.writeValue(out, script);
+        }
+        return Digests.toHex(digest.digest());
+    }
+}
@@ -0,0 +1,152 @@
+package com.opencellsoft.utils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link DependencyGraph} class
+ * <p>
+ * The dependencies between scripts, derived from the {@link SourceMetadata}
+ * of their java sources. A script depends on another one when it imports its
+ * class, a nested class or a static member of it, or when it uses its simple
+ * name and is in the same package or imports its package on demand.
+ * <p>
+ * The scripts are deployed in {@link #layers(List) layers}: the scripts of a
+ * layer only depend on scripts of the previous layers, so they can be
+ * deployed concurrently.
+ *
+ * @author mohammed stitane
+ */
+public class DependencyGraph {
+
+    private final Map<File, Set<File>> dependencies;
+
+    private DependencyGraph(Map<File, Set<File>> dependencies) {
+        this.dependencies = dependencies;
+    }
+
+    /**
+     * @param scripts the metadata of the source of each script file
+     * @return the dependencies between the scripts
+     */
+    public static DependencyGraph of(Map<File, SourceMetadata> scripts) {
+        Map<String, File> byClass = new HashMap<>();
+        Map<String, List<SourceMetadata>> bySimpleName = new HashMap<>();
+        for (Map.Entry<File, SourceMetadata> script : scripts.entrySet()) {
+            SourceMetadata source = script.getValue();
+            byClass.put(source.getFullClassName(), normalize(script.getKey()));
+            bySimpleName.computeIfAbsent(source.getTypeName(), name -> new ArrayList<>()).add(source);
+        }
+        Map<File, Set<File>> dependencies = new HashMap<>();
+        for (Map.Entry<File, SourceMetadata> script : scripts.entrySet()) {
+            SourceMetadata source = script.getValue();
+            Set<File> found = new LinkedHashSet<>();
+            for (String imported : source.getImports()) {
+                // the imported class, or the class enclosing an imported nested class or static member
+                String name = imported.endsWith(".*") ? null : imported;
+                while (name != null && !byClass.containsKey(name)) {
+                    int dot = name.lastIndexOf('.');
+                    name = dot < 0 ? null : name.substring(0, dot);
+                }
+                if (name != null) {
+                    found.add(byClass.get(name));
+                }
+            }
+            for (String identifier : source.getIdentifiers()) {
+                for (SourceMetadata other : bySimpleName.getOrDefault(identifier, Collections.<SourceMetadata> emptyList())) {
+                    if (other.getPackageName().equals(source.getPackageName()) || source.getImports().contains(other.getPackageName() + ".*")) {
+                        found.add(byClass.get(other.getFullClassName()));
+                    }
+                }
+            }
+            File file = normalize(script.getKey());
+            found.remove(file);
+            if (!found.isEmpty()) {
+                dependencies.put(file, found);
+            }
+        }
+        return new DependencyGraph(dependencies);
+    }
+
+    /**
+     * @return the absolute and normalized file, as found in the dependencies
+     */
+    public static File normalize(File file) {
+        return file.getAbsoluteFile().toPath().normalize().toFile();
+    }
+
+    /**
+     * @return true if no script depends on another one
+     */
+    public boolean isEmpty() {
+        return dependencies.isEmpty();
+    }
+
+    /**
+     * @return the number of scripts depending on other scripts
+     */
+    public int size() {
+        return dependencies.size();
+    }
+
+    /**
+     * @param file a script file
+     * @return the scripts it depends on
+     */
+    public Set<File> getDependencies(File file) {
+        Set<File> found = dependencies.get(normalize(file));
+        return found == null ? Collections.<File> emptySet() : found;
+    }
+
+    /**
+     * Group the files in layers, each file after the files it depends on.
+     * Dependencies which are not in the files are ignored. Files in a cycle,
+     * and the files depending on them, are put together in the last layer.
+     *
+     * @param files the files to deploy
+     * @return the layers, each one in the order of the files
+     */
+    public List<List<File>> layers(List<File> files) {
+        Map<File, File> keys = new LinkedHashMap<>();
+        for (File file : files) {
+            keys.put(normalize(file), file);
+        }
+        List<List<File>> layers = new ArrayList<>();
+        Set<File> done = new HashSet<>();
+        Map<File, File> remaining = new LinkedHashMap<>(keys);
+        while (!remaining.isEmpty()) {
+            List<File> layer = new ArrayList<>();
+            for (Map.Entry<File, File> file : remaining.entrySet()) {
+                boolean ready = true;
+                for (File dependency : getDependencies(file.getKey())) {
+                    if (keys.containsKey(dependency) && !done.contains(dependency)) {
+                        ready = false;
+                        break;
+                    }
+                }
+                if (ready) {
+                    layer.add(file.getValue());
+                }
+            }
+            if (layer.isEmpty()) {
+                layers.add(new ArrayList<>(remaining.values()));
+                break;
+            }
+            for (File file : layer) {
+                File key = normalize(file);
+                done.add(key);
+                remaining.remove(key);
+            }
+            layers.add(layer);
+        }
+        return layers;
+    }
+}
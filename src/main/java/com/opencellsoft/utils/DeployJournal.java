@@ -0,0 +1,168 @@
+package com.opencellsoft.utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link DeployJournal} class
+ * <p>
+ * Append-only journal of the files submitted by a deployment, one line per
+ * response: timestamp, status, hash of the content, target and file. When a
+ * deployment is interrupted, the next one can resume from the journal: the
+ * files already acknowledged by the same target with the same content are not
+ * sent again.
+ * <p>
+ * Each line is written to the file as soon as it is recorded, so it survives
+ * the build being killed, while the file is only synced to the disk every
+ * <code>syncInterval</code> milliseconds, not once per line. A line torn by a
+ * crash is ignored when the journal is read.
+ *
+ * @author mohammed stitane
+ */
+public class DeployJournal implements Closeable {
+
+    private static final String SEPARATOR = "\t";
+
+    private final File file;
+    private final long syncInterval;
+    private final Map<String, String> acknowledged = new ConcurrentHashMap<>();
+    private FileChannel channel;
+    private Writer writer;
+    private long lastSync;
+    private boolean dirty;
+
+    private DeployJournal(File file, long syncInterval) {
+        this.file = file;
+        this.syncInterval = TimeUnit.MILLISECONDS.toNanos(syncInterval);
+    }
+
+    /**
+     * Open a journal.
+     *
+     * @param file         the journal file
+     * @param resume       true to keep the entries of the previous deployment,
+     *                     false to start a new journal
+     * @param syncInterval the minimum time in milliseconds between two syncs
+     *                     of the file to the disk
+     * @return the journal
+     * @throws IOException if the journal can not be read or cleared
+     */
+    public static DeployJournal open(File file, boolean resume, long syncInterval) throws IOException {
+        DeployJournal journal = new DeployJournal(file, syncInterval);
+        if (!resume) {
+            Files.deleteIfExists(file.toPath());
+        } else if (file.isFile()) {
+            try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    journal.read(line);
+                }
+            }
+        }
+        return journal;
+    }
+
+    private void read(String line) {
+        String[] fields = line.split(SEPARATOR, 5);
+        if (fields.length < 5) {
+            return;
+        }
+        try {
+            int status = Integer.parseInt(fields[1]);
+            String key = key(fields[3], fields[4]);
+            if (status >= 200 && status < 300) {
+                acknowledged.put(key, fields[2]);
+            } else {
+                acknowledged.remove(key);
+            }
+        } catch (NumberFormatException ex) {
+            // torn line
+        }
+    }
+
+    private static String key(String target, String path) {
+        return target + SEPARATOR + path;
+    }
+
+    /**
+     * @return the number of files acknowledged by the previous deployment
+     */
+    public int size() {
+        return acknowledged.size();
+    }
+
+    /**
+     * @param file   the file to submit
+     * @param hash   the hash of its content
+     * @param target the method and URI the file is submitted to
+     * @return true if the same content was acknowledged by the same target
+     */
+    public boolean isAcknowledged(File file, String hash, String target) {
+        return hash.equals(acknowledged.get(key(target, file.getAbsolutePath())));
+    }
+
+    /**
+     * Append the response of a submitted file.
+     *
+     * @param file   the submitted file
+     * @param hash   the hash of its content
+     * @param target the method and URI the file was submitted to
+     * @param status the status of the response
+     * @throws IOException if the journal can not be written
+     */
+    public synchronized void record(File file, String hash, String target, int status) throws IOException {
+        if (writer == null) {
+            File dir = this.file.getAbsoluteFile().getParentFile();
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                throw new IOException(String.format("Unable to create path [%s]", dir));
+            }
+            channel = FileChannel.open(this.file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            writer = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8));
+            lastSync = System.nanoTime();
+        }
+        writer.write(String.join(SEPARATOR, Instant.now().toString(), String.valueOf(status), hash, target, file.getAbsolutePath()));
+        writer.write('\n');
+        writer.flush();
+        dirty = true;
+        long now = System.nanoTime();
+        if (now - lastSync >= syncInterval) {
+            channel.force(false);
+            lastSync = now;
+            dirty = false;
+        }
+    }
+
+    /**
+     * Sync the journal to the disk and close it.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.flush();
+            if (dirty) {
+                channel.force(false);
+            }
+        } finally {
+            writer.close();
+            writer = null;
+            channel = null;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.opencellsoft.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * {@link DeployManifest} class
+ * <p>
+ * Persistent state of the previous executions, used by the incremental mode:
+ * <ul>
+ * <li>for each script code, the java source it was generated from and the
+ * hash of that source, so unchanged sources are not converted again</li>
+ * <li>for each target and each file submitted to it, the hash of the file
+ * content and the last response status, so files already deployed are not
+ * sent again</li>
+ * </ul>
+ *
+ * @author mohammed stitane
+ */
+public class DeployManifest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    /**
+     * A converted script.
+     */
+    public static class Script {
+        private String source;
+        private String sourceHash;
+        private String output;
+
+        public String getSource() {
+            return source;
+        }
+
+        public void setSource(String source) {
+            this.source = source;
+        }
+
+        public String getSourceHash() {
+            return sourceHash;
+        }
+
+        public void setSourceHash(String sourceHash) {
+            this.sourceHash = sourceHash;
+        }
+
+        public String getOutput() {
+            return output;
+        }
+
+        public void setOutput(String output) {
+            this.output = output;
+        }
+    }
+
+    /**
+     * A submitted file.
+     */
+    public static class Deployment {
+        private String hash;
+        private int status;
+
+        public String getHash() {
+            return hash;
+        }
+
+        public void setHash(String hash) {
+            this.hash = hash;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public void setStatus(int status) {
+            this.status = status;
+        }
+    }
+
+    private Map<String, Script> scripts = new ConcurrentHashMap<>();
+    /**
+     * The code of the script of each source, by absolute path.
+     */
+    private final Map<String, String> codesBySource = new ConcurrentHashMap<>();
+    private Map<String, Map<String, Deployment>> targets = new ConcurrentHashMap<>();
+
+    /**
+     * Load the manifest from a file.
+     *
+     * @param file the manifest file
+     * @return the manifest, empty if the file does not exist
+     * @throws IOException if the file can not be read
+     */
+    public static DeployManifest load(File file) throws IOException {
+        if (!file.isFile()) {
+            return new DeployManifest();
+        }
+        return MAPPER.readValue(file, DeployManifest.class);
+    }
+
+    /**
+     * Save the manifest, replacing the file atomically.
+     *
+     * @param file the manifest file
+     * @throws IOException if the file can not be written
+     */
+    public synchronized void save(File file) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException(String.format("Unable to create path [%s]", dir));
+        }
+        File tmp = File.createTempFile(file.getName(), ".tmp", dir);
+        try {
+            MAPPER.writerWithDefaultPrettyPrinter().writeValue(tmp, this);
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+    }
+
+    /**
+     * @param source     the java source
+     * @param sourceHash the hash of its content
+     * @param outDir     the directory the scripts are generated into
+     * @return the code of the script if the source was already converted with
+     * the same content and its output still exists, null otherwise
+     */
+    public String findConverted(File source, String sourceHash, File outDir) {
+        String code = codesBySource.get(source.getAbsolutePath());
+        Script script = code == null ? null : scripts.get(code);
+        if (script == null) {
+            return null;
+        }
+        boolean unchanged = sourceHash.equals(script.getSourceHash()) && new File(outDir, script.getOutput()).isFile();
+        return unchanged ? code : null;
+    }
+
+    public synchronized void recordConversion(String code, File source, String sourceHash, String output) {
+        String path = source.getAbsolutePath();
+        String previousCode = codesBySource.get(path);
+        if (previousCode != null) {
+            scripts.remove(previousCode);
+        }
+        Script script = new Script();
+        script.setSource(path);
+        script.setSourceHash(sourceHash);
+        script.setOutput(output);
+        Script replaced = scripts.put(code, script);
+        if (replaced != null && replaced.getSource() != null) {
+            // the code was generated from another source before
+            codesBySource.remove(replaced.getSource(), code);
+        }
+        codesBySource.put(path, code);
+    }
+
+    /**
+     * @param file   the file to submit
+     * @param hash   the hash of its content
+     * @param target the method and URI the file is submitted to
+     * @return true if the same content was already successfully submitted to
+     * the same target
+     */
+    public boolean isDeployed(File file, String hash, String target) {
+        Map<String, Deployment> deployments = targets.get(target);
+        Deployment deployment = deployments == null ? null : deployments.get(file.getAbsolutePath());
+        return deployment != null && hash.equals(deployment.getHash()) && deployment.getStatus() >= 200 && deployment.getStatus() < 300;
+    }
+
+    public void recordDeployment(File file, String hash, String target, int status) {
+        Deployment deployment = new Deployment();
+        deployment.setHash(hash);
+        deployment.setStatus(status);
+        targets.computeIfAbsent(target, k -> new ConcurrentHashMap<>()).put(file.getAbsolutePath(), deployment);
+    }
+
+    public Map<String, Script> getScripts() {
+        return scripts;
+    }
+
+    public synchronized void setScripts(Map<String, Script> scripts) {
+        this.scripts = new ConcurrentHashMap<>(scripts);
+        codesBySource.clear();
+        for (Map.Entry<String, Script> entry : this.scripts.entrySet()) {
+            if (entry.getValue().getSource() != null) {
+                codesBySource.put(entry.getValue().getSource(), entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * @return for each target, the deployment of each file by absolute path
+     */
+    public Map<String, Map<String, Deployment>> getTargets() {
+        return targets;
+    }
+
+    public void setTargets(Map<String, Map<String, Deployment>> targets) {
+        this.targets = new ConcurrentHashMap<>();
+        for (Map.Entry<String, Map<String, Deployment>> entry : targets.entrySet()) {
+            this.targets.put(entry.getKey(), new ConcurrentHashMap<>(entry.getValue()));
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.opencellsoft.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * {@link DeployReport} class
+ * <p>
+ * Collect the {@link RequestMetrics} of an execution, and write them with
+ * their aggregates as a JSON report and a JUnit XML report, one test case per
+ * request, so the deploy performance can be tracked by CI servers.
+ *
+ * @author mohammed stitane
+ */
+public class DeployReport {
+
+    public static final String JSON_REPORT = "deploy-report.json";
+    public static final String JUNIT_REPORT = "TEST-rest-deploy.xml";
+
+    private final long start = System.nanoTime();
+    private final List<RequestMetrics> requests = new CopyOnWriteArrayList<>();
+    private volatile long end;
+
+    /**
+     * Start recording a request.
+     *
+     * @param endpoint the name of the endpoint
+     * @param name     the name of the file or batch
+     * @param files    the number of files sent
+     * @return the metrics of the request
+     */
+    public RequestMetrics start(String endpoint, String name, int files) {
+        RequestMetrics metrics = new RequestMetrics(endpoint, name, files);
+        requests.add(metrics);
+        return metrics;
+    }
+
+    /**
+     * Record the end of the execution.
+     */
+    public void finish() {
+        end = System.nanoTime();
+    }
+
+    public List<RequestMetrics> getRequests() {
+        return requests;
+    }
+
+    /**
+     * @return the aggregates of all the requests
+     */
+    public Map<String, Object> getSummary() {
+        List<Double> totals = new ArrayList<>();
+        int failed = 0;
+        int retries = 0;
+        long bytesSent = 0;
+        long bytesReceived = 0;
+        Map<Integer, Integer> statuses = new TreeMap<>();
+        for (RequestMetrics request : requests) {
+            totals.add(request.getTotalMillis());
+            failed += request.isFailed() ? 1 : 0;
+            retries += request.getRetries();
+            bytesSent += request.getBytesSent();
+            bytesReceived += request.getBytesReceived();
+            statuses.merge(request.getStatus(), 1, Integer::sum);
+        }
+        Collections.sort(totals);
+        double seconds = ((end == 0 ? System.nanoTime() : end) - start) / 1e9;
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", requests.size());
+        summary.put("failed", failed);
+        summary.put("retries", retries);
+        summary.put("durationSeconds", Math.round(seconds * 1000) / 1000.0);
+        summary.put("requestsPerSecond", seconds > 0 ? Math.round(requests.size() / seconds * 100) / 100.0 : 0);
+        summary.put("p50Millis", percentile(totals, 50));
+        summary.put("p95Millis", percentile(totals, 95));
+        summary.put("p99Millis", percentile(totals, 99));
+        summary.put("maxMillis", totals.isEmpty() ? 0 : totals.get(totals.size() - 1));
+        summary.put("bytesSent", bytesSent);
+        summary.put("bytesReceived", bytesReceived);
+        summary.put("statuses", statuses);
+        return summary;
+    }
+
+    /**
+     * @param sorted the sorted values
+     * @param p      the percentile, between 0 and 100
+     * @return the nearest-rank percentile, 0 if there is no value
+     */
+    public static double percentile(List<Double> sorted, int p) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(p / 100.0 * sorted.size());
+        return sorted.get(Math.max(0, Math.min(sorted.size(), rank) - 1));
+    }
+
+    /**
+     * @return a one line summary for the build output
+     */
+    public String toSummaryLine() {
+        Map<String, Object> summary = getSummary();
+        return String.format(Locale.ROOT, "%s request(s), %s failed, %s retries, %s req/s, p50 %s ms, p95 %s ms, p99 %s ms, %s bytes sent, %s bytes received",
+                summary.get("requests"), summary.get("failed"), summary.get("retries"), summary.get("requestsPerSecond"), summary.get("p50Millis"),
+                summary.get("p95Millis"), summary.get("p99Millis"), summary.get("bytesSent"), summary.get("bytesReceived"));
+    }
+
+    /**
+     * Write the JSON and JUnit XML reports.
+     *
+     * @param dir the directory of the reports
+     * @throws IOException if a report can not be written
+     */
+    public void write(File dir) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException(String.format("Unable to create path [%s]", dir));
+        }
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("summary", getSummary());
+        json.put("requests", requests);
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(new File(dir, JSON_REPORT), json);
+
+        try (OutputStream out = Files.newOutputStream(new File(dir, JUNIT_REPORT).toPath())) {
+            writeJUnit(out);
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private void writeJUnit(OutputStream out) throws XMLStreamException {
+        Map<String, Object> summary = getSummary();
+        XMLStreamWriter xml = XMLOutputFactory.newInstance().createXMLStreamWriter(out, "UTF-8");
+        xml.writeStartDocument("UTF-8", "1.0");
+        xml.writeStartElement("testsuite");
+        xml.writeAttribute("name", "rest-deploy");
+        xml.writeAttribute("tests", String.valueOf(requests.size()));
+        xml.writeAttribute("failures", String.valueOf(summary.get("failed")));
+        xml.writeAttribute("errors", "0");
+        xml.writeAttribute("skipped", "0");
+        xml.writeAttribute("time", String.valueOf(summary.get("durationSeconds")));
+        for (RequestMetrics request : requests) {
+            xml.writeStartElement("testcase");
+            xml.writeAttribute("classname", String.valueOf(request.getEndpoint()));
+            xml.writeAttribute("name", request.getName());
+            xml.writeAttribute("time", String.format(Locale.ROOT, "%.3f", request.getTotalMillis() / 1000));
+            if (request.isFailed()) {
+                xml.writeStartElement("failure");
+                xml.writeAttribute("message", request.getError());
+                xml.writeAttribute("type", String.valueOf(request.getStatus()));
+                xml.writeEndElement();
+            }
+            xml.writeStartElement("system-out");
+            xml.writeCharacters(String.format(Locale.ROOT, "status=%d retries=%d ttfbMillis=%s bytesSent=%d bytesReceived=%d", request.getStatus(),
+                    request.getRetries(), request.getTtfbMillis(), request.getBytesSent(), request.getBytesReceived()));
+            xml.writeEndElement();
+            xml.writeEndElement();
+        }
+        xml.writeEndElement();
+        xml.writeEndDocument();
+        xml.close();
+    }
+}
@@ -0,0 +1,56 @@
+package com.opencellsoft.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * {@link Digests} class
+ * <p>
+ * SHA-256 helpers used to detect content changes between executions.
+ *
+ * @author mohammed stitane
+ */
+public final class Digests {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private Digests() {
+    }
+
+    /**
+     * @param content the bytes to hash
+     * @return the hex encoded SHA-256 of the content
+     */
+    public static String sha256(byte[] content) {
+        return toHex(newSha256().digest(content));
+    }
+
+    /**
+     * @param file the file to hash
+     * @return the hex encoded SHA-256 of the file content
+     * @throws IOException if the file can not be read
+     */
+    public static String sha256(File file) throws IOException {
+        return sha256(Files.readAllBytes(file.toPath()));
+    }
+
+    public static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,71 @@
+package com.opencellsoft.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+
+/**
+ * {@link FileContent} class
+ * <p>
+ * Access to the content of the files to submit. Files are read from disk by
+ * {@link #DISK}, while {@link ConvertedScripts} serves the scripts converted
+ * in the same execution from memory.
+ *
+ * @author mohammed stitane
+ */
+public interface FileContent {
+
+    /**
+     * The content of the files on disk.
+     */
+    FileContent DISK = new FileContent() {
+        @Override
+        public Object toEntity(File file) {
+            return file;
+        }
+
+        @Override
+        public long size(File file) {
+            return file.length();
+        }
+
+        @Override
+        public void writeTo(File file, OutputStream out) throws IOException {
+            Files.copy(file.toPath(), out);
+        }
+
+        @Override
+        public String sha256(File file) throws IOException {
+            return Digests.sha256(file);
+        }
+    };
+
+    /**
+     * @param file the file to submit
+     * @return the request entity streaming the content of the file
+     */
+    Object toEntity(File file);
+
+    /**
+     * @param file the file to submit
+     * @return the size of its content in bytes, may be estimated
+     */
+    long size(File file);
+
+    /**
+     * Write the content of a file, without closing the stream.
+     *
+     * @param file the file to submit
+     * @param out  the stream to write to
+     * @throws IOException if the content can not be read or written
+     */
+    void writeTo(File file, OutputStream out) throws IOException;
+
+    /**
+     * @param file the file to submit
+     * @return the hex encoded SHA-256 of its content
+     * @throws IOException if the content can not be read
+     */
+    String sha256(File file) throws IOException;
+}
@@ -2,58 +2,288 @@ package com.opencellsoft.utils;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
 
 import com.opencellsoft.plugin.RestPlugin;
 
 import org.apache.maven.model.FileSet;
 import org.apache.maven.plugin.MojoExecutionException;
-import org.codehaus.plexus.util.FileUtils;
 
 /**
  * {@link FileSetTransformer} class
+ * <p>
+ * Resolve the files of {@link FileSet}s, with the Ant patterns of the plexus
+ * <code>FileUtils.getFiles</code>.
+ * <p>
+ * The patterns are compiled once per fileset, and each directory is walked
+ * once per instance with NIO, in parallel with the other directories, then
+ * the listing is shared by every fileset of the directory. The walk stops at
+ * the depth of the deepest include without <code>**</code>. The files are
+ * returned in the order of the filesets, sorted by path within a fileset,
+ * without duplicates.
  *
  * @author mohammed stitane
  */
 public class FileSetTransformer {
 
-    private RestPlugin plugin;
-    private final FileSet fileSet;
+    private final RestPlugin plugin;
+    private final Map<Listing, Future<List<String>>> listings = new LinkedHashMap<>();
 
-    public FileSetTransformer(RestPlugin plugin, FileSet fileSet) {
+    public FileSetTransformer(RestPlugin plugin) {
         this.plugin = plugin;
-        this.fileSet = fileSet;
     }
 
-    public List<File> toFileList() throws MojoExecutionException {
-        return toFileList(fileSet);
+    /**
+     * @param fileSets the filesets, null elements and filesets without
+     *                 directory are ignored
+     * @return the files of all the filesets, without duplicates
+     * @throws MojoExecutionException if a directory can not be walked
+     */
+    public List<File> toFileList(List<FileSet> fileSets) throws MojoExecutionException {
+        List<FileSet> valid = new ArrayList<>();
+        for (FileSet fs : fileSets) {
+            if (fs == null) {
+                continue;
+            }
+            if (fs.getDirectory() == null) {
+                plugin.getLog().warn(String.format("Fileset [%s] directory empty", fs.toString()));
+                continue;
+            }
+            valid.add(fs);
+        }
+
+        List<Listing> keys = new ArrayList<>();
+        List<Matcher> matchers = new ArrayList<>();
+        for (FileSet fs : valid) {
+            Matcher matcher = new Matcher(fs);
+            matchers.add(matcher);
+            keys.add(new Listing(plugin.resolveFile(fs.getDirectory()).getAbsoluteFile().toPath().normalize(), matcher.maxDepth));
+        }
+
+        ExecutorService executor = null;
+        try {
+            List<Future<List<String>>> futures = new ArrayList<>();
+            synchronized (listings) {
+                for (Listing key : keys) {
+                    if (!listings.containsKey(key)) {
+                        if (executor == null) {
+                            executor = Executors.newFixedThreadPool(Math.max(1, Math.min(keys.size(), Runtime.getRuntime().availableProcessors())));
+                        }
+                        listings.put(key, executor.submit(key::walk));
+                    }
+                    futures.add(listings.get(key));
+                }
+            }
+
+            Set<File> files = new LinkedHashSet<>();
+            for (int i = 0; i < valid.size(); i++) {
+                Listing key = keys.get(i);
+                List<String> paths = await(valid.get(i), futures.get(i));
+                if (paths == null) {
+                    plugin.getLog().warn(String.format("Fileset [%s] directory does not exist", valid.get(i).getDirectory()));
+                    continue;
+                }
+                for (String path : paths) {
+                    if (matchers.get(i).matches(path)) {
+                        files.add(key.directory.resolve(path).toFile());
+                    }
+                }
+            }
+            return new ArrayList<>(files);
+        } finally {
+            if (executor != null) {
+                executor.shutdown();
+            }
+        }
     }
 
     public List<File> toFileList(FileSet fs) throws MojoExecutionException {
+        return toFileList(Collections.singletonList(fs));
+    }
+
+    private List<String> await(FileSet fs, Future<List<String>> listing) throws MojoExecutionException {
         try {
-            if (fs.getDirectory() != null) {
-                File directory = new File(fs.getDirectory());
-                String includes = toString(fs.getIncludes());
-                String excludes = toString(fs.getExcludes());
-                return FileUtils.getFiles(directory, includes, excludes);
-            } else {
-                plugin.getLog().warn(String.format("Fileset [%s] directory empty", fs.toString()));
-                return new ArrayList<>();
+            return listing.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException(String.format("Interrupted while getting paths to fileset [%s]", fs.toString()), e);
+        } catch (ExecutionException e) {
+            throw new MojoExecutionException(String.format("Unable to get paths to fileset [%s]", fs.toString()), e.getCause());
+        }
+    }
+
+    /**
+     * The files under a directory, down to a depth, relative to the directory
+     * with <code>/</code> separators.
+     */
+    private static final class Listing {
+        private final Path directory;
+        private final int maxDepth;
+
+        private Listing(Path directory, int maxDepth) {
+            this.directory = directory;
+            this.maxDepth = maxDepth;
+        }
+
+        /**
+         * @return the sorted relative paths of the files, null if the
+         * directory does not exist
+         */
+        private List<String> walk() throws IOException {
+            if (!Files.isDirectory(directory)) {
+                return null;
+            }
+            final List<String> paths = new ArrayList<>();
+            Files.walkFileTree(directory, EnumSet.of(FileVisitOption.FOLLOW_LINKS), maxDepth, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
+                    if (exc instanceof FileSystemLoopException) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    throw exc;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile()) {
+                        paths.add(relative(file));
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            Collections.sort(paths);
+            return paths;
+        }
+
+        private String relative(Path path) {
+            return directory.relativize(path).toString().replace(File.separatorChar, '/');
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Listing)) {
+                return false;
             }
-        } catch (IOException e) {
-            throw new MojoExecutionException(String.format("Unable to get paths to fileset [%s]", fs.toString()), e);
+            Listing other = (Listing) o;
+            return directory.equals(other.directory) && maxDepth == other.maxDepth;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(directory, maxDepth);
+        }
+    }
+
+    /**
+     * The compiled includes and excludes of a fileset.
+     */
+    private static final class Matcher {
+        private final List<Pattern> includes;
+        private final List<Pattern> excludes;
+        private final int maxDepth;
+
+        private Matcher(FileSet fs) {
+            includes = compile(fs.getIncludes());
+            excludes = compile(fs.getExcludes());
+            int depth = 0;
+            for (String pattern : fs.getIncludes()) {
+                String normalized = normalize(pattern);
+                if (normalized.contains("**")) {
+                    depth = Integer.MAX_VALUE;
+                    break;
+                }
+                depth = Math.max(depth, normalized.split("/").length);
+            }
+            maxDepth = depth;
+        }
+
+        private boolean matches(String path) {
+            return matchesAny(includes, path) && !matchesAny(excludes, path);
         }
     }
 
-    private String toString(List<String> strings) {
-        StringBuilder sb = new StringBuilder();
-        for (String string : strings) {
-            if (sb.length() > 0) {
-                sb.append(", ");
+    private static boolean matchesAny(List<Pattern> patterns, String path) {
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(path).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<Pattern> compile(List<String> patterns) {
+        List<Pattern> compiled = new ArrayList<>();
+        for (String pattern : patterns) {
+            for (String p : pattern.split(",")) {
+                if (!p.trim().isEmpty()) {
+                    compiled.add(compile(normalize(p.trim())));
+                }
+            }
+        }
+        return compiled;
+    }
+
+    private static String normalize(String pattern) {
+        String normalized = pattern.replace('\\', '/');
+        while (normalized.startsWith("/")) {
+            normalized = normalized.substring(1);
+        }
+        return normalized.endsWith("/") ? normalized + "**" : normalized;
+    }
+
+    /**
+     * Compile an Ant pattern: <code>**</code> matches any number of
+     * directories, <code>*</code> any characters but <code>/</code> and
+     * <code>?</code> a single one.
+     */
+    private static Pattern compile(String pattern) {
+        StringBuilder regex = new StringBuilder();
+        int i = 0;
+        while (i < pattern.length()) {
+            if (pattern.startsWith("**/", i)) {
+                regex.append("(?:.*/)?");
+                i += 3;
+            } else if (pattern.startsWith("/**", i) && i + 3 == pattern.length()) {
+                regex.append("(?:/.*)?");
+                i += 3;
+            } else if (pattern.startsWith("**", i)) {
+                regex.append(".*");
+                i += 2;
+            } else if (pattern.charAt(i) == '*') {
+                regex.append("[^/]*");
+                i++;
+            } else if (pattern.charAt(i) == '?') {
+                regex.append("[^/]");
+                i++;
+            } else {
+                int next = i;
+                while (next < pattern.length() && "*?".indexOf(pattern.charAt(next)) < 0 && !(pattern.startsWith("/**", next) && next + 3 == pattern.length())) {
+                    next++;
+                }
+                regex.append(Pattern.quote(pattern.substring(i, next)));
+                i = next;
             }
-            sb.append(string);
         }
-        return sb.toString();
+        return Pattern.compile(regex.toString());
     }
 }
@@ -0,0 +1,323 @@
+package com.opencellsoft.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+/**
+ * {@link GitMetadataService} class
+ * <p>
+ * Resolve the last commit touching each file of a git work tree. The
+ * repository is opened once, and all the files are resolved in a single walk
+ * over the history, filtered on their paths. Results are cached, so the
+ * service can be queried from several threads once {@link #resolve(Collection)}
+ * returned.
+ *
+ * @author mohammed stitane
+ */
+public class GitMetadataService implements AutoCloseable {
+
+    /**
+     * The id, author and time of a commit.
+     */
+    public static class CommitInfo {
+        private final String id;
+        private final String author;
+        private final int commitTime;
+
+        public CommitInfo(String id, String author, int commitTime) {
+            this.id = id;
+            this.author = author;
+            this.commitTime = commitTime;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getAuthor() {
+            return author;
+        }
+
+        /**
+         * @return the commit time, in seconds since the epoch
+         */
+        public int getCommitTime() {
+            return commitTime;
+        }
+    }
+
+    private static final CommitInfo NONE = new CommitInfo(null, null, 0);
+
+    private final Repository repository;
+    private final Path workTree;
+    private final Map<String, CommitInfo> cache = new ConcurrentHashMap<>();
+
+    private GitMetadataService(Repository repository) {
+        this.repository = repository;
+        this.workTree = repository.getWorkTree().toPath().toAbsolutePath().normalize();
+    }
+
+    /**
+     * Open the repository containing a directory.
+     *
+     * @param start a directory of the work tree
+     * @return the service, or null if the directory is not in a git work tree
+     * @throws IOException if the repository can not be opened
+     */
+    public static GitMetadataService open(File start) throws IOException {
+        FileRepositoryBuilder builder = new FileRepositoryBuilder().readEnvironment().findGitDir(start.getAbsoluteFile());
+        if (builder.getGitDir() == null) {
+            return null;
+        }
+        Repository repository = builder.setMustExist(true).build();
+        if (repository.isBare()) {
+            repository.close();
+            return null;
+        }
+        return new GitMetadataService(repository);
+    }
+
+    /**
+     * Resolve the last commit of all the files in one walk over the history.
+     * The files which are not in HEAD, untracked or removed, are not looked
+     * up in the history.
+     *
+     * @param files the files to resolve
+     * @throws IOException if the history can not be read
+     */
+    public void resolve(Collection<File> files) throws IOException {
+        Set<String> pending = new HashSet<>();
+        for (File file : files) {
+            String path = toRepositoryPath(file);
+            if (path != null && !cache.containsKey(path)) {
+                pending.add(path);
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        ObjectId head = repository.resolve("HEAD");
+        if (head != null) {
+            walk(head, pending);
+        }
+        // untracked files, or files not in HEAD
+        for (String path : pending) {
+            cache.put(path, NONE);
+        }
+    }
+
+    /**
+     * Walk the history from the newest commit, carrying with each commit the
+     * paths whose history goes through it. As with <code>git log -- path</code>,
+     * a path is resolved by the first commit changing it from all its
+     * parents, and a merge passes a path only to the first parent it is
+     * unchanged from, so the commits of the other branches do not count.
+     */
+    private void walk(ObjectId head, Set<String> pending) throws IOException {
+        try (RevWalk walk = new RevWalk(repository); TreeWalk treeWalk = new TreeWalk(repository)) {
+            treeWalk.setRecursive(true);
+            RevCommit start = walk.parseCommit(head);
+            // the paths not in HEAD, which would be carried to the root commit
+            Set<String> tracked = headPaths(treeWalk, start, pending);
+            for (Iterator<String> it = pending.iterator(); it.hasNext();) {
+                String path = it.next();
+                if (!tracked.contains(path)) {
+                    it.remove();
+                    cache.put(path, NONE);
+                }
+            }
+            if (pending.isEmpty()) {
+                return;
+            }
+            Map<RevCommit, Set<String>> carried = new HashMap<>();
+            PriorityQueue<RevCommit> queue = new PriorityQueue<>((a, b) -> Integer.compare(b.getCommitTime(), a.getCommitTime()));
+            carried.put(start, new HashSet<>(pending));
+            queue.add(start);
+            PendingFilter filter = new PendingFilter(pending);
+            while (!queue.isEmpty() && !pending.isEmpty()) {
+                RevCommit commit = queue.poll();
+                Set<String> paths = carried.remove(commit);
+                paths.retainAll(pending);
+                if (paths.isEmpty()) {
+                    continue;
+                }
+                TreeFilter treeFilter = filter.get(pending);
+                int parentCount = commit.getParentCount();
+                RevCommit[] parents = new RevCommit[parentCount];
+                List<Set<String>> changed = new ArrayList<>();
+                for (int i = 0; i < parentCount; i++) {
+                    parents[i] = walk.parseCommit(commit.getParent(i));
+                    changed.add(changedPaths(treeWalk, treeFilter, commit, parents[i]));
+                }
+                Set<String> added = parentCount == 0 ? changedPaths(treeWalk, treeFilter, commit, null) : null;
+                for (String path : paths) {
+                    int unchanged = -1;
+                    for (int i = 0; i < parentCount && unchanged < 0; i++) {
+                        if (!changed.get(i).contains(path)) {
+                            unchanged = i;
+                        }
+                    }
+                    if (unchanged >= 0) {
+                        Set<String> next = carried.get(parents[unchanged]);
+                        if (next == null) {
+                            next = new HashSet<>();
+                            carried.put(parents[unchanged], next);
+                            queue.add(parents[unchanged]);
+                        }
+                        next.add(path);
+                    } else if (parentCount > 0 || added.contains(path)) {
+                        pending.remove(path);
+                        cache.put(path, new CommitInfo(commit.name(), commit.getAuthorIdent().getName(), commit.getCommitTime()));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the paths of the tree of the commit among the pending ones
+     */
+    private static Set<String> headPaths(TreeWalk treeWalk, RevCommit head, Set<String> pending) throws IOException {
+        treeWalk.reset();
+        treeWalk.setFilter(PathFilterGroup.createFromStrings(new ArrayList<>(pending)));
+        treeWalk.addTree(head.getTree());
+        Set<String> paths = new HashSet<>();
+        while (treeWalk.next()) {
+            paths.add(treeWalk.getPathString());
+        }
+        return paths;
+    }
+
+    /**
+     * The filter of the pending paths, built again when they are half
+     * resolved.
+     */
+    private static final class PendingFilter {
+        private TreeFilter filter;
+        private int size;
+
+        private PendingFilter(Set<String> pending) {
+            build(pending);
+        }
+
+        private void build(Set<String> pending) {
+            filter = AndTreeFilter.create(PathFilterGroup.createFromStrings(new ArrayList<>(pending)), TreeFilter.ANY_DIFF);
+            size = pending.size();
+        }
+
+        private TreeFilter get(Set<String> pending) {
+            if (pending.size() < size / 2) {
+                build(pending);
+            }
+            return filter;
+        }
+    }
+
+    /**
+     * @return the paths of the filter changed from the parent, or present in
+     *         the commit if it has no parent
+     */
+    private static Set<String> changedPaths(TreeWalk treeWalk, TreeFilter filter, RevCommit commit, RevCommit parent) throws IOException {
+        treeWalk.reset();
+        treeWalk.setFilter(filter);
+        treeWalk.addTree(commit.getTree());
+        if (parent != null) {
+            treeWalk.addTree(parent.getTree());
+        } else {
+            treeWalk.addTree(new EmptyTreeIterator());
+        }
+        Set<String> changed = new HashSet<>();
+        while (treeWalk.next()) {
+            changed.add(treeWalk.getPathString());
+        }
+        return changed;
+    }
+
+    /**
+     * @param file a file of the work tree
+     * @return the last commit touching the file, or null if the file is not
+     * tracked or was not resolved
+     */
+    public CommitInfo getLastCommit(File file) {
+        String path = toRepositoryPath(file);
+        CommitInfo info = path == null ? null : cache.get(path);
+        return info == NONE ? null : info;
+    }
+
+    /**
+     * @return the last commits resolved so far by repository path, with a
+     * null id for the files which are not tracked
+     */
+    public Map<String, CommitInfo> getLastCommits() {
+        return new HashMap<>(cache);
+    }
+
+    /**
+     * Add the last commits resolved before from the same HEAD, so their files
+     * are not looked up in the history again.
+     *
+     * @param commits the last commits by repository path, as returned by
+     *                {@link #getLastCommits()}
+     */
+    public void addLastCommits(Map<String, CommitInfo> commits) {
+        for (Map.Entry<String, CommitInfo> entry : commits.entrySet()) {
+            cache.putIfAbsent(entry.getKey(), entry.getValue().getId() == null ? NONE : entry.getValue());
+        }
+    }
+
+    /**
+     * @param file a file of the work tree
+     * @return the path of the file relative to the work tree, or null if the
+     * file is outside the work tree
+     */
+    public String toRepositoryPath(File file) {
+        Path path = file.toPath().toAbsolutePath().normalize();
+        if (!path.startsWith(workTree)) {
+            return null;
+        }
+        return workTree.relativize(path).toString().replace(File.separatorChar, '/');
+    }
+
+    /**
+     * @return the id of the commit checked out, or null if there is none yet
+     * @throws IOException if the HEAD can not be read
+     */
+    public String getHead() throws IOException {
+        ObjectId head = repository.resolve("HEAD");
+        return head == null ? null : head.name();
+    }
+
+    /**
+     * @return the work tree of the repository
+     */
+    public File getWorkTree() {
+        return workTree.toFile();
+    }
+
+    @Override
+    public void close() {
+        repository.close();
+    }
+}
@@ -0,0 +1,258 @@
+package com.opencellsoft.utils;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.core.Configuration;
+
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.ClientRequest;
+import org.glassfish.jersey.client.ClientResponse;
+import org.glassfish.jersey.client.spi.AsyncConnectorCallback;
+import org.glassfish.jersey.client.spi.Connector;
+import org.glassfish.jersey.message.internal.Statuses;
+
+/**
+ * {@link Http2Connector} class
+ * <p>
+ * A Jersey {@link Connector} sending the requests with the JDK 11
+ * {@link HttpClient}, which negotiates HTTP/2 with the server (ALPN over TLS,
+ * upgrade over clear text) and falls back to HTTP/1.1. Over HTTP/2, the
+ * requests in flight are multiplexed over a single connection per server, so
+ * concurrent uploads share one TLS handshake.
+ * <p>
+ * The request entity, compressed by the encoding interceptors if any, is
+ * written by a writer thread into a pipe which the {@link HttpClient} reads
+ * while it sends the request, so it is never held in memory. The response
+ * entity is streamed.
+ *
+ * @author mohammed stitane
+ */
+class Http2Connector implements Connector {
+
+    /**
+     * The headers set by the {@link HttpClient} itself.
+     */
+    private static final Set<String> RESTRICTED_HEADERS = new HashSet<>(Arrays.asList("connection", "content-length", "expect", "host", "upgrade"));
+
+    private static final int PIPE_SIZE = 64 * 1024;
+
+    private final HttpClient httpClient;
+    private final Duration readTimeout;
+    private final ExecutorService writers = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "http2-entity-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The entity of a request, written by a writer thread into a pipe.
+     */
+    private final class EntityPipe implements Closeable {
+        private final PipedInputStream in = new PipedInputStream(PIPE_SIZE);
+        private final CompletableFuture<Integer> committed = new CompletableFuture<>();
+        private volatile Throwable failure;
+
+        EntityPipe(final ClientRequest request) throws IOException {
+            final PipedOutputStream out = new PipedOutputStream(in);
+            request.setStreamProvider(contentLength -> {
+                committed.complete(contentLength);
+                return out;
+            });
+            writers.execute(() -> {
+                try {
+                    request.writeEntity();
+                } catch (IOException | RuntimeException ex) {
+                    failure = ex;
+                    committed.completeExceptionally(ex);
+                } finally {
+                    try {
+                        out.close();
+                    } catch (IOException ex) {
+                        // the reader is gone, the request already failed
+                    }
+                }
+            });
+        }
+
+        /**
+         * Wait for the interceptors to commit the headers of the request.
+         *
+         * @return the publisher reading the pipe, failing if the entity could
+         *         not be written entirely
+         */
+        HttpRequest.BodyPublisher publisher() throws IOException, InterruptedException {
+            int contentLength;
+            try {
+                contentLength = committed.get();
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof IOException) {
+                    throw (IOException) ex.getCause();
+                }
+                throw (RuntimeException) ex.getCause();
+            }
+            InputStream body = new FilterInputStream(in) {
+                @Override
+                public int read() throws IOException {
+                    return checkEnd(super.read());
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    return checkEnd(super.read(b, off, len));
+                }
+            };
+            HttpRequest.BodyPublisher publisher = HttpRequest.BodyPublishers.ofInputStream(() -> body);
+            return contentLength > 0 ? HttpRequest.BodyPublishers.fromPublisher(publisher, contentLength) : publisher;
+        }
+
+        private int checkEnd(int read) throws IOException {
+            if (read < 0 && failure != null) {
+                throw new IOException("Unable to write the request entity: " + failure.getMessage(), failure);
+            }
+            return read;
+        }
+
+        /**
+         * Close the pipe once the request is sent, so the writer does not wait
+         * for a reader which is gone.
+         */
+        @Override
+        public void close() {
+            try {
+                in.close();
+            } catch (IOException ex) {
+                // nothing to release
+            }
+        }
+    }
+
+    Http2Connector(Client client, Configuration config) {
+        HttpClient.Builder builder = HttpClient.newBuilder().version(HttpClient.Version.HTTP_2);
+        int connectTimeout = ClientProperties.getValue(config.getProperties(), ClientProperties.CONNECT_TIMEOUT, 0);
+        if (connectTimeout > 0) {
+            builder.connectTimeout(Duration.ofMillis(connectTimeout));
+        }
+        boolean followRedirects = ClientProperties.getValue(config.getProperties(), ClientProperties.FOLLOW_REDIRECTS, true);
+        builder.followRedirects(followRedirects ? HttpClient.Redirect.NORMAL : HttpClient.Redirect.NEVER);
+        if (client.getSslContext() != null) {
+            builder.sslContext(client.getSslContext());
+        }
+        this.httpClient = builder.build();
+        int timeout = ClientProperties.getValue(config.getProperties(), ClientProperties.READ_TIMEOUT, 0);
+        this.readTimeout = timeout > 0 ? Duration.ofMillis(timeout) : null;
+    }
+
+    @Override
+    public ClientResponse apply(ClientRequest request) {
+        EntityPipe entity = null;
+        try {
+            entity = request.hasEntity() ? new EntityPipe(request) : null;
+            return toResponse(request, httpClient.send(toHttpRequest(request, entity), HttpResponse.BodyHandlers.ofInputStream()));
+        } catch (IOException ex) {
+            throw new ProcessingException(ex.getMessage(), ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ProcessingException("Interrupted while sending the request", ex);
+        } finally {
+            if (entity != null) {
+                entity.close();
+            }
+        }
+    }
+
+    @Override
+    public Future<?> apply(final ClientRequest request, final AsyncConnectorCallback callback) {
+        EntityPipe entity = null;
+        HttpRequest httpRequest;
+        try {
+            entity = request.hasEntity() ? new EntityPipe(request) : null;
+            httpRequest = toHttpRequest(request, entity);
+        } catch (IOException | InterruptedException | ProcessingException ex) {
+            if (ex instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            if (entity != null) {
+                entity.close();
+            }
+            callback.failure(ex);
+            return CompletableFuture.completedFuture(null);
+        }
+        final EntityPipe sent = entity;
+        return httpClient.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofInputStream()).whenComplete((response, failure) -> {
+            if (sent != null) {
+                sent.close();
+            }
+            if (failure != null) {
+                callback.failure(failure);
+            } else {
+                callback.response(toResponse(request, response));
+            }
+        });
+    }
+
+    /**
+     * The headers are read once the entity committed them, as the encoding
+     * interceptors add the <code>Content-Encoding</code> header.
+     */
+    private HttpRequest toHttpRequest(ClientRequest request, EntityPipe entity) throws IOException, InterruptedException {
+        HttpRequest.BodyPublisher body = entity == null ? HttpRequest.BodyPublishers.noBody() : entity.publisher();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(request.getUri()).method(request.getMethod(), body);
+        if (readTimeout != null) {
+            builder.timeout(readTimeout);
+        }
+        for (Map.Entry<String, List<String>> header : request.getStringHeaders().entrySet()) {
+            if (RESTRICTED_HEADERS.contains(header.getKey().toLowerCase(Locale.ROOT))) {
+                continue;
+            }
+            for (String value : header.getValue()) {
+                builder.header(header.getKey(), value);
+            }
+        }
+        return builder.build();
+    }
+
+    private static ClientResponse toResponse(ClientRequest request, HttpResponse<InputStream> httpResponse) {
+        ClientResponse response = new ClientResponse(Statuses.from(httpResponse.statusCode()), request, httpResponse.uri());
+        for (Map.Entry<String, List<String>> header : httpResponse.headers().map().entrySet()) {
+            // skip the HTTP/2 pseudo headers
+            if (!header.getKey().startsWith(":")) {
+                response.getHeaders().addAll(header.getKey(), header.getValue());
+            }
+        }
+        response.setEntityStream(httpResponse.body());
+        return response;
+    }
+
+    @Override
+    public String getName() {
+        return "JDK HttpClient (HTTP/2)";
+    }
+
+    @Override
+    public void close() {
+        writers.shutdown();
+        // the connections of the JDK client are closed when it is garbage collected
+    }
+}
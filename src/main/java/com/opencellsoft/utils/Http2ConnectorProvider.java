@@ -0,0 +1,25 @@
+package com.opencellsoft.utils;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.core.Configuration;
+
+import org.glassfish.jersey.client.spi.Connector;
+import org.glassfish.jersey.client.spi.ConnectorProvider;
+
+/**
+ * {@link Http2ConnectorProvider} class
+ * <p>
+ * Provide the {@link Http2Connector} of the <code>http2</code> connector.
+ * The class requires Java 11: the <code>java11</code> profile compiles it
+ * against the Java 11 API into <code>META-INF/versions/11</code> of the
+ * multi-release jar, and it is loaded by name by the {@link ClientFactory}.
+ *
+ * @author mohammed stitane
+ */
+public class Http2ConnectorProvider implements ConnectorProvider {
+
+    @Override
+    public Connector getConnector(Client client, Configuration runtimeConfig) {
+        return new Http2Connector(client, runtimeConfig);
+    }
+}
@@ -0,0 +1,56 @@
+package com.opencellsoft.utils;
+
+import java.io.IOException;
+
+import javax.annotation.Priority;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.ext.ReaderInterceptor;
+import javax.ws.rs.ext.ReaderInterceptorContext;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import org.apache.commons.io.input.ProxyInputStream;
+import org.apache.commons.io.output.ProxyOutputStream;
+
+/**
+ * {@link MetricsInterceptor} class
+ * <p>
+ * Count the bytes of the request and response bodies into the
+ * {@link RequestMetrics} of the request, if any. It runs before the content
+ * encoders, so it sees the bytes on the wire.
+ *
+ * @author mohammed stitane
+ */
+@Priority(1)
+public class MetricsInterceptor implements WriterInterceptor, ReaderInterceptor {
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException {
+        final Object metrics = context.getProperty(RequestMetrics.PROPERTY);
+        if (metrics instanceof RequestMetrics) {
+            context.setOutputStream(new ProxyOutputStream(context.getOutputStream()) {
+                @Override
+                protected void afterWrite(int n) {
+                    ((RequestMetrics) metrics).addBytesSent(n);
+                }
+            });
+        }
+        context.proceed();
+    }
+
+    @Override
+    public Object aroundReadFrom(ReaderInterceptorContext context) throws IOException, WebApplicationException {
+        final Object metrics = context.getProperty(RequestMetrics.PROPERTY);
+        if (metrics instanceof RequestMetrics) {
+            context.setInputStream(new ProxyInputStream(context.getInputStream()) {
+                @Override
+                protected void afterRead(int n) {
+                    if (n > 0) {
+                        ((RequestMetrics) metrics).addBytesReceived(n);
+                    }
+                }
+            });
+        }
+        return context.proceed();
+    }
+}
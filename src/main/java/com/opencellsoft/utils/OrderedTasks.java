@@ -0,0 +1,83 @@
+package com.opencellsoft.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * {@link OrderedTasks} class
+ * <p>
+ * Run a task on every input with a pool of threads, and collect the results
+ * in the order of the inputs.
+ * <p>
+ * Each task logs into its own {@link BufferedLog} which is flushed into the
+ * parent log in the order of the inputs, so the build output does not depend
+ * on scheduling.
+ *
+ * @author mohammed stitane
+ */
+public final class OrderedTasks {
+
+    /**
+     * A task run by {@link OrderedTasks#run(List, int, Log, Task)}.
+     */
+    public interface Task<I, T> {
+        T run(I input, Log log) throws MojoExecutionException;
+    }
+
+    private OrderedTasks() {
+    }
+
+    /**
+     * @param inputs  the inputs
+     * @param threads the number of threads
+     * @param parent  the log the task logs are flushed to
+     * @param task    the task, run with the input and its log
+     * @return the result of each input
+     * @throws MojoExecutionException if a task failed or was interrupted, the
+     *                                tasks still running are then interrupted
+     */
+    public static <I, T> List<T> run(List<I> inputs, int threads, Log parent, final Task<I, T> task) throws MojoExecutionException {
+        List<T> results = new ArrayList<>(inputs.size());
+        if (inputs.isEmpty()) {
+            return results;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, inputs.size())));
+        try {
+            List<BufferedLog> logs = new ArrayList<>(inputs.size());
+            List<Future<T>> futures = new ArrayList<>(inputs.size());
+            for (final I input : inputs) {
+                final BufferedLog log = new BufferedLog(parent);
+                logs.add(log);
+                futures.add(executor.submit(() -> task.run(input, log)));
+            }
+            for (int i = 0; i < inputs.size(); i++) {
+                results.add(await(futures.get(i)));
+                logs.get(i).flush();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return results;
+    }
+
+    private static <T> T await(Future<T> result) throws MojoExecutionException {
+        try {
+            return result.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while processing files", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof MojoExecutionException) {
+                throw (MojoExecutionException) ex.getCause();
+            }
+            throw new MojoExecutionException(String.format("Unable to process files: [%s]", ex.getCause()), ex.getCause());
+        }
+    }
+}
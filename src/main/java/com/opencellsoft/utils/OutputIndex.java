@@ -0,0 +1,152 @@
+package com.opencellsoft.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * {@link OutputIndex} class
+ * <p>
+ * The scripts generated into an output directory by an owner, the java
+ * sources of a module, indexed by java source. The output directory is no longer
+ * emptied on each execution: the scripts are replaced one by one, and a
+ * full conversion only deletes the scripts of its previous generation whose
+ * source was removed or now generates another script.
+ * <p>
+ * Several modules can share an output directory, even when built
+ * concurrently: each one has its own index, written atomically under
+ * {@link #INDEX_DIR}, and a script claimed by the index of another owner is
+ * never deleted.
+ *
+ * @author mohammed stitane
+ */
+public class OutputIndex {
+
+    /**
+     * The directory of the indexes, in the output directory.
+     */
+    public static final String INDEX_DIR = ".rest-index";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, String>> SCRIPTS = new TypeReference<Map<String, String>>() {
+    };
+
+    private final File outDir;
+    private final File file;
+    private final Map<String, String> previous;
+    private final Map<String, String> scripts = new TreeMap<>();
+
+    private OutputIndex(File outDir, File file, Map<String, String> previous) {
+        this.outDir = outDir;
+        this.file = file;
+        this.previous = previous;
+    }
+
+    /**
+     * Load the index of an owner.
+     *
+     * @param outDir the output directory
+     * @param roots  the java source directories and files of the owner
+     * @return the index, with the scripts of the previous generation
+     * @throws IOException if the index can not be read
+     */
+    public static OutputIndex load(File outDir, Collection<String> roots) throws IOException {
+        List<String> sorted = new ArrayList<>();
+        for (String root : roots) {
+            sorted.add(new File(root).getAbsolutePath());
+        }
+        sorted.sort(null);
+        String owner = Digests.sha256(String.join("\n", sorted).getBytes(StandardCharsets.UTF_8)).substring(0, 16);
+        File file = new File(new File(outDir, INDEX_DIR), owner + ".index");
+        return new OutputIndex(outDir, file, read(file));
+    }
+
+    private static Map<String, String> read(File file) throws IOException {
+        return file.isFile() ? MAPPER.<Map<String, String>> readValue(file, SCRIPTS) : new TreeMap<String, String>();
+    }
+
+    /**
+     * @param source the java source
+     * @param script the script generated from it
+     */
+    public synchronized void put(File source, File script) {
+        scripts.put(source.getAbsolutePath(), script.getName());
+    }
+
+    /**
+     * Find the scripts of the previous generation which are not generated
+     * anymore. The sources which are not converted in this generation, but
+     * still exist, keep their script.
+     *
+     * @param sources the current java sources
+     * @return the scripts to delete, not claimed by any other owner
+     * @throws IOException if the indexes of the other owners can not be read
+     */
+    public synchronized List<File> collect(Collection<File> sources) throws IOException {
+        Set<String> current = new HashSet<>();
+        for (File source : sources) {
+            current.add(source.getAbsolutePath());
+        }
+        for (Map.Entry<String, String> entry : previous.entrySet()) {
+            if (current.contains(entry.getKey()) && !scripts.containsKey(entry.getKey())) {
+                scripts.put(entry.getKey(), entry.getValue());
+            }
+        }
+        Set<String> claimed = new HashSet<>(scripts.values());
+        File[] others = file.getParentFile().listFiles((dir, name) -> name.endsWith(".index") && !name.equals(file.getName()));
+        if (others != null) {
+            for (File other : others) {
+                claimed.addAll(read(other).values());
+            }
+        }
+        List<File> stale = new ArrayList<>();
+        for (String name : new HashSet<>(previous.values())) {
+            if (!claimed.contains(name)) {
+                stale.add(new File(outDir, name));
+            }
+        }
+        stale.sort(null);
+        return stale;
+    }
+
+    /**
+     * Keep the scripts of the previous generation which were not converted,
+     * when only some sources are converted.
+     */
+    public synchronized void retainPrevious() {
+        for (Map.Entry<String, String> entry : previous.entrySet()) {
+            scripts.putIfAbsent(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Save the index, replacing the file atomically.
+     *
+     * @throws IOException if the file can not be written
+     */
+    public synchronized void save() throws IOException {
+        File dir = file.getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException(String.format("Unable to create path [%s]", dir));
+        }
+        File tmp = File.createTempFile(file.getName(), ".tmp", dir);
+        try {
+            MAPPER.writerWithDefaultPrettyPrinter().writeValue(tmp, scripts);
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.opencellsoft.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * {@link RequestMetrics} class
+ * <p>
+ * The timings, sizes and outcome of the submission of one file or one batch,
+ * all attempts included.
+ * <p>
+ * The time to first byte is measured from the start of the last attempt to
+ * the reception of the response headers, and the total time from the start of
+ * the first attempt to the end of the processing of the response body. DNS and
+ * connect times are not exposed by the Jersey connectors. Bytes are counted
+ * on the wire, after request compression and before response decompression.
+ *
+ * @author mohammed stitane
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RequestMetrics {
+
+    /**
+     * The request property holding the metrics of a request, read by
+     * {@link MetricsInterceptor}.
+     */
+    public static final String PROPERTY = RequestMetrics.class.getName();
+
+    private final String endpoint;
+    private final String name;
+    private final int files;
+    private final long start = System.nanoTime();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private volatile long attemptStart = start;
+    private volatile long firstByte;
+    private volatile long end;
+    private volatile int attempts;
+    private volatile int status;
+    private volatile String error;
+
+    /**
+     * @param endpoint the name of the endpoint
+     * @param name     the name of the file or batch
+     * @param files    the number of files sent
+     */
+    public RequestMetrics(String endpoint, String name, int files) {
+        this.endpoint = endpoint;
+        this.name = name;
+        this.files = files;
+    }
+
+    /**
+     * Record the start of an attempt.
+     */
+    public void attempt() {
+        attempts++;
+        attemptStart = System.nanoTime();
+    }
+
+    /**
+     * Record the reception of the response headers.
+     *
+     * @param status the HTTP status of the response
+     */
+    public void responded(int status) {
+        this.status = status;
+        firstByte = System.nanoTime();
+    }
+
+    /**
+     * Record the end of the request.
+     *
+     * @param error the error of the request, null if it succeeded
+     */
+    public void finish(ErrorInfo error) {
+        end = System.nanoTime();
+        this.error = error == null ? null : error.toString().trim();
+    }
+
+    public void addBytesSent(long count) {
+        bytesSent.addAndGet(count);
+    }
+
+    public void addBytesReceived(long count) {
+        bytesReceived.addAndGet(count);
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getFiles() {
+        return files;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public int getRetries() {
+        return Math.max(0, attempts - 1);
+    }
+
+    /**
+     * @return the time to first byte of the last attempt in milliseconds, -1
+     * if no response was received
+     */
+    public double getTtfbMillis() {
+        return firstByte == 0 ? -1 : millis(firstByte - attemptStart);
+    }
+
+    /**
+     * @return the total time in milliseconds
+     */
+    public double getTotalMillis() {
+        return millis((end == 0 ? System.nanoTime() : end) - start);
+    }
+
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived.get();
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    @JsonIgnore
+    public boolean isFailed() {
+        return error != null;
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 10000.0) / 100.0;
+    }
+}
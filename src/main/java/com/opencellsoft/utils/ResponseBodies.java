@@ -0,0 +1,148 @@
+package com.opencellsoft.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * {@link ResponseBodies} class
+ * <p>
+ * Save response bodies to files, and capture a bounded prefix of error
+ * bodies for the build output.
+ * <p>
+ * Bodies are streamed from the connection to the file through a channel
+ * transfer, so a large response is never held in memory.
+ *
+ * @author mohammed stitane
+ */
+public final class ResponseBodies {
+
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private ResponseBodies() {
+    }
+
+    /**
+     * Stream a body to a file, replacing it.
+     *
+     * @param in   the body, closed when done
+     * @param file the file to write
+     * @param gzip true to gzip the file content
+     * @return the number of bytes of the body
+     * @throws IOException if the body can not be read or the file written
+     */
+    public static long save(InputStream in, File file, boolean gzip) throws IOException {
+        if (gzip) {
+            try (InputStream body = in; OutputStream out = new GZIPOutputStream(Files.newOutputStream(file.toPath()), GZIP_BUFFER_SIZE)) {
+                byte[] buffer = new byte[GZIP_BUFFER_SIZE];
+                long size = 0;
+                int n;
+                while ((n = body.read(buffer)) != -1) {
+                    out.write(buffer, 0, n);
+                    size += n;
+                }
+                return size;
+            }
+        }
+        try (ReadableByteChannel source = Channels.newChannel(in);
+                FileChannel target = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.WRITE)) {
+            long position = 0;
+            long n;
+            while ((n = target.transferFrom(source, position, Long.MAX_VALUE)) > 0) {
+                position += n;
+            }
+            return position;
+        }
+    }
+
+    /**
+     * Read at most <code>limit</code> bytes of a body.
+     *
+     * @param in    the body
+     * @param limit the maximum number of bytes read
+     * @return the body as UTF-8 text, with a marker if it was truncated
+     * @throws IOException if the body can not be read
+     */
+    public static String read(InputStream in, int limit) throws IOException {
+        Capture capture = new Capture(in, limit);
+        byte[] buffer = new byte[Math.max(1, Math.min(limit + 1, 8 * 1024))];
+        while (capture.getSize() <= limit && capture.read(buffer) != -1) {
+            // only the captured prefix is kept
+        }
+        return capture.getText();
+    }
+
+    /**
+     * A stream keeping a copy of the first bytes read through it.
+     */
+    public static class Capture extends FilterInputStream {
+
+        private final int limit;
+        private final ByteArrayOutputStream captured;
+        private long size;
+
+        /**
+         * @param in    the stream to read
+         * @param limit the maximum number of bytes kept
+         */
+        public Capture(InputStream in, int limit) {
+            super(in);
+            this.limit = Math.max(0, limit);
+            this.captured = new ByteArrayOutputStream(Math.min(this.limit, 8 * 1024));
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                keep(new byte[] { (byte) b }, 0, 1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                keep(b, off, n);
+            }
+            return n;
+        }
+
+        private void keep(byte[] b, int off, int len) {
+            int room = (int) Math.max(0, Math.min(len, limit - size));
+            captured.write(b, off, room);
+            size += len;
+        }
+
+        /**
+         * @return the number of bytes read
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * @return the bytes kept as UTF-8 text, with a marker if more bytes
+         * were read
+         */
+        public String getText() {
+            String text = new String(captured.toByteArray(), StandardCharsets.UTF_8);
+            if (size > limit) {
+                return text + "... (truncated)";
+            }
+            return text;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.opencellsoft.utils;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * {@link RetryPolicy} class
+ * <p>
+ * Decide whether a failed request is sent again, and how long to wait
+ * before. Transport failures and the configured statuses are retried, up to
+ * <code>maxRetries</code> times. The wait is an exponential backoff with
+ * jitter: a random delay between half and all of
+ * <code>initialBackoff * 2^(retry - 1)</code>, capped by
+ * <code>maxBackoff</code>. A <code>Retry-After</code> header, in seconds or as
+ * an HTTP date, takes precedence, within the same cap.
+ *
+ * @author mohammed stitane
+ */
+public class RetryPolicy {
+
+    private final int maxRetries;
+    private final Set<Integer> retryableStatuses;
+    private final long initialBackoff;
+    private final long maxBackoff;
+
+    /**
+     * @param maxRetries        the maximum number of retries of a request
+     * @param retryableStatuses the HTTP statuses which are retried
+     * @param initialBackoff    the backoff before the first retry, in
+     *                          milliseconds
+     * @param maxBackoff        the maximum backoff, in milliseconds
+     */
+    public RetryPolicy(int maxRetries, Collection<Integer> retryableStatuses, long initialBackoff, long maxBackoff) {
+        this.maxRetries = Math.max(0, maxRetries);
+        this.retryableStatuses = retryableStatuses == null ? new HashSet<>() : new HashSet<>(retryableStatuses);
+        this.initialBackoff = Math.max(0, initialBackoff);
+        this.maxBackoff = Math.max(this.initialBackoff, maxBackoff);
+    }
+
+    /**
+     * @param status an HTTP status
+     * @return true if a response with this status is retried
+     */
+    public boolean isRetryable(int status) {
+        return retryableStatuses.contains(status);
+    }
+
+    /**
+     * @param attempt the number of attempts already made, starting at 1
+     * @return true if another attempt can be made
+     */
+    public boolean canRetry(int attempt) {
+        return attempt <= maxRetries;
+    }
+
+    /**
+     * @param attempt    the number of attempts already made, starting at 1
+     * @param retryAfter the <code>Retry-After</code> header of the response,
+     *                   or null
+     * @return the delay before the next attempt, in milliseconds
+     */
+    public long backoff(int attempt, String retryAfter) {
+        long requested = parseRetryAfter(retryAfter);
+        if (requested >= 0) {
+            return Math.min(requested, maxBackoff);
+        }
+        long backoff = initialBackoff << Math.min(attempt - 1, 30);
+        if (backoff <= 0 || backoff > maxBackoff) {
+            backoff = maxBackoff;
+        }
+        long half = backoff / 2;
+        return half + ThreadLocalRandom.current().nextLong(backoff - half + 1);
+    }
+
+    /**
+     * @param retryAfter a <code>Retry-After</code> header value
+     * @return the delay it requests in milliseconds, or -1 if it is missing or
+     * invalid
+     */
+    public static long parseRetryAfter(String retryAfter) {
+        if (retryAfter == null || retryAfter.trim().isEmpty()) {
+            return -1;
+        }
+        String value = retryAfter.trim();
+        try {
+            return Math.max(0, Long.parseLong(value) * 1000);
+        } catch (NumberFormatException e) {
+            // not a number of seconds, try an HTTP date
+        }
+        try {
+            ZonedDateTime date = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0, Duration.between(ZonedDateTime.now(date.getZone()), date).toMillis());
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy{" + "maxRetries=" + maxRetries + ", retryableStatuses=" + retryableStatuses + ", initialBackoff=" + initialBackoff
+                + ", maxBackoff=" + maxBackoff + '}';
+    }
+}
@@ -0,0 +1,243 @@
+package com.opencellsoft.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.opencellsoft.dto.ScriptInstance;
+
+/**
+ * {@link ScriptCache} class
+ * <p>
+ * On-disk cache of the converted scripts, addressed by the SHA-256 of what a
+ * conversion depends on: the version of the plugin, the last commit of the
+ * java source, which gives the author and time of its description, and the
+ * content of the source. As neither the commit checked out nor the path of
+ * the source is part of the key, a script is shared by the branches and
+ * commits where its source and last commit are the same. A cached script is
+ * used as is, so the source is neither parsed nor serialized again.
+ * <p>
+ * The last commits of the sources are cached too, by commit checked out, so
+ * the git history is only walked once per commit.
+ * <p>
+ * The cache can be shared by modules and builds: each entry is written to a
+ * temporary file which is atomically renamed. Reading an entry marks it as
+ * recently used, and {@link #evict()} deletes the least recently used
+ * entries once the cache is larger than its maximum size.
+ *
+ * @author mohammed stitane
+ */
+public class ScriptCache {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final File dir;
+    private final long maxSize;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    /**
+     * @param dir     the directory of the cache
+     * @param maxSize the maximum size of the cache in bytes
+     */
+    public ScriptCache(File dir, long maxSize) {
+        this.dir = dir;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @param version the version of the plugin
+     * @param commit  the id of the last commit of the source, null if the
+     *                source is not tracked in a git repository
+     * @param source  the content of the java source
+     * @return the key of the script converted from the source
+     */
+    public static String key(String version, String commit, byte[] source) {
+        MessageDigest digest = Digests.newSha256();
+        for (String part : new String[] { version, commit }) {
+            digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        digest.update(source);
+        return Digests.toHex(digest.digest());
+    }
+
+    private File entry(String key) {
+        return new File(new File(dir, key.substring(0, 2)), key + ".json");
+    }
+
+    /**
+     * @param key a key from {@link #key(String, String, byte[])}
+     * @return true if the cache holds the script
+     */
+    public boolean contains(String key) {
+        return entry(key).isFile();
+    }
+
+    /**
+     * @param key a key from {@link #key(String, String, byte[])}
+     * @return the cached script, null if it is not cached or can not be read
+     */
+    public ScriptInstance get(String key) {
+        File file = entry(key);
+        try {
+            ScriptInstance script = MAPPER.readValue(file, ScriptInstance.class);
+            Files.setLastModifiedTime(file.toPath(), FileTime.fromMillis(System.currentTimeMillis()));
+            hits.incrementAndGet();
+            return script;
+        } catch (IOException ex) {
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * @param key    a key from {@link #key(String, String, byte[])}
+     * @param script the script converted from the source
+     * @throws IOException if the script can not be written
+     */
+    public void put(String key, ScriptInstance script) throws IOException {
+        write(entry(key), script);
+    }
+
+    private File lastCommits(String head) {
+        return new File(new File(dir, "commits"), head + ".json");
+    }
+
+    /**
+     * @param head the id of the commit checked out
+     * @return the last commits of the sources by repository path, as put
+     * from the same commit, or null if there are none or they can not be
+     * read
+     */
+    public Map<String, GitMetadataService.CommitInfo> getLastCommits(String head) {
+        File file = lastCommits(head);
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            Map<String, GitMetadataService.CommitInfo> commits = new HashMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = MAPPER.readTree(file).fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                JsonNode commit = field.getValue();
+                commits.put(field.getKey(), commit.size() < 3 ? new GitMetadataService.CommitInfo(null, null, 0)
+                        : new GitMetadataService.CommitInfo(commit.get(0).asText(), commit.get(1).asText(), commit.get(2).asInt()));
+            }
+            Files.setLastModifiedTime(file.toPath(), FileTime.fromMillis(System.currentTimeMillis()));
+            return commits;
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * @param head    the id of the commit checked out
+     * @param commits the last commits of the sources by repository path, with
+     *                a null id for the untracked sources
+     * @throws IOException if the commits can not be written
+     */
+    public void putLastCommits(String head, Map<String, GitMetadataService.CommitInfo> commits) throws IOException {
+        ObjectNode root = MAPPER.createObjectNode();
+        for (Map.Entry<String, GitMetadataService.CommitInfo> entry : new TreeMap<>(commits).entrySet()) {
+            GitMetadataService.CommitInfo commit = entry.getValue();
+            ArrayNode node = root.putArray(entry.getKey());
+            if (commit.getId() != null) {
+                node.add(commit.getId()).add(commit.getAuthor()).add(commit.getCommitTime());
+            }
+        }
+        write(lastCommits(head), root);
+    }
+
+    private static void write(File file, Object value) throws IOException {
+        File parent = file.getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory()) {
+            throw new IOException(String.format("Unable to create path [%s]", parent));
+        }
+        File tmp = File.createTempFile(file.getName(), ".tmp", parent);
+        try {
+            MAPPER.writeValue(tmp, value);
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+    }
+
+    /**
+     * Delete the least recently used entries, scripts or last commits, until
+     * the cache is not larger than its maximum size.
+     *
+     * @return the number of entries deleted
+     * @throws IOException if the cache can not be listed
+     */
+    public int evict() throws IOException {
+        if (!dir.isDirectory()) {
+            return 0;
+        }
+        final List<Path> entries = new ArrayList<>();
+        final List<BasicFileAttributes> attributes = new ArrayList<>();
+        final long[] size = new long[1];
+        Files.walkFileTree(dir.toPath(), new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (file.getFileName().toString().endsWith(".json")) {
+                    entries.add(file);
+                    attributes.add(attrs);
+                    size[0] += attrs.size();
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        if (size[0] <= maxSize) {
+            return 0;
+        }
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            order.add(i);
+        }
+        order.sort((a, b) -> attributes.get(a).lastModifiedTime().compareTo(attributes.get(b).lastModifiedTime()));
+        int deleted = 0;
+        for (int i : order) {
+            if (size[0] <= maxSize) {
+                break;
+            }
+            if (Files.deleteIfExists(entries.get(i))) {
+                deleted++;
+            }
+            size[0] -= attributes.get(i).size();
+        }
+        return deleted;
+    }
+
+    public int getHits() {
+        return hits.get();
+    }
+
+    public int getMisses() {
+        return misses.get();
+    }
+
+    public File getDir() {
+        return dir;
+    }
+}
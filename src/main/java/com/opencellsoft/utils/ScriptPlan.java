@@ -0,0 +1,113 @@
+package com.opencellsoft.utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opencellsoft.dto.ScriptInstance;
+
+/**
+ * {@link ScriptPlan} class
+ * <p>
+ * The plan of a deployment: the script instances found on the server, by
+ * <code>code</code>, are compared with the local ones, and only the scripts
+ * to {@link Action#CREATE create} or {@link Action#UPDATE update} need to be
+ * submitted. Two scripts are unchanged when the hashes of their type,
+ * description and source are equal.
+ *
+ * @author mohammed stitane
+ */
+public class ScriptPlan {
+
+    /**
+     * What a deployment does to a script.
+     */
+    public enum Action {
+        CREATE, UPDATE, UNCHANGED
+    }
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final String resource;
+    private final String codeParam;
+    private final boolean apply;
+
+    /**
+     * @param resource  the resource returning a script instance
+     * @param codeParam the query param holding the code of the script
+     * @param apply     true to submit the scripts to create or update, false
+     *                  for a dry run
+     */
+    public ScriptPlan(String resource, String codeParam, boolean apply) {
+        this.resource = resource;
+        this.codeParam = codeParam;
+        this.apply = apply;
+    }
+
+    public String getResource() {
+        return resource;
+    }
+
+    public String getCodeParam() {
+        return codeParam;
+    }
+
+    public boolean isApply() {
+        return apply;
+    }
+
+    /**
+     * @param content the content of a file to submit
+     * @return its script instance, null if it is not a script instance
+     * @throws IOException if the content is not json
+     */
+    public static ScriptInstance readLocal(byte[] content) throws IOException {
+        JsonNode node = MAPPER.readTree(content);
+        return toScript(node);
+    }
+
+    /**
+     * Compare a local script with the response of the server.
+     *
+     * @param local  the local script
+     * @param status the status of the response, <code>404</code> when the
+     *               script does not exist
+     * @param body   the body of the response: the script instance, wrapped or
+     *               not in a <code>scriptInstance</code> field
+     * @return the action deploying the local script
+     * @throws IOException if the body is not json
+     */
+    public static Action compare(ScriptInstance local, int status, byte[] body) throws IOException {
+        if (status == 404 || body.length == 0) {
+            return Action.CREATE;
+        }
+        JsonNode node = MAPPER.readTree(body);
+        ScriptInstance remote = toScript(node != null && node.has("scriptInstance") ? node.get("scriptInstance") : node);
+        if (remote == null || !local.getCode().equals(remote.getCode())) {
+            return Action.CREATE;
+        }
+        return hash(local).equals(hash(remote)) ? Action.UNCHANGED : Action.UPDATE;
+    }
+
+    /**
+     * @return the hex encoded SHA-256 of the type, description and source of
+     *         the script
+     */
+    public static String hash(ScriptInstance script) {
+        StringBuilder content = new StringBuilder();
+        for (String field : new String[] { script.getType(), script.getDescription(), script.getScript() }) {
+            String value = field == null ? "" : field;
+            content.append(value.length()).append(':').append(value);
+        }
+        return Digests.sha256(content.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ScriptInstance toScript(JsonNode node) throws IOException {
+        if (node == null || !node.isObject() || !node.hasNonNull("code")) {
+            return null;
+        }
+        return MAPPER.treeToValue(node, ScriptInstance.class);
+    }
+}
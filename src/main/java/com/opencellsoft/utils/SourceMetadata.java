@@ -0,0 +1,83 @@
+package com.opencellsoft.utils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * {@link SourceMetadata} class
+ * <p>
+ * The package, primary type name, type javadoc, imports and identifiers of a
+ * java source, as found by {@link SourceMetadataExtractor}.
+ *
+ * @author mohammed stitane
+ */
+public class SourceMetadata {
+
+    private final String packageName;
+    private final String typeName;
+    private final String javadoc;
+    private final List<String> imports;
+    private final Set<String> identifiers;
+
+    public SourceMetadata(String packageName, String typeName, String javadoc) {
+        this(packageName, typeName, javadoc, Collections.<String> emptyList(), Collections.<String> emptySet());
+    }
+
+    public SourceMetadata(String packageName, String typeName, String javadoc, List<String> imports, Set<String> identifiers) {
+        this.packageName = packageName == null ? "" : packageName;
+        this.typeName = typeName == null ? "" : typeName;
+        this.javadoc = javadoc == null ? "" : javadoc;
+        this.imports = imports;
+        this.identifiers = identifiers;
+    }
+
+    /**
+     * @return the package name, empty for the default package
+     */
+    public String getPackageName() {
+        return packageName;
+    }
+
+    /**
+     * @return the simple name of the primary type, empty if none was found
+     */
+    public String getTypeName() {
+        return typeName;
+    }
+
+    /**
+     * @return the javadoc of the primary type on a single line, empty if none
+     */
+    public String getJavadoc() {
+        return javadoc;
+    }
+
+    /**
+     * @return the imported names, static ones included, with a trailing
+     * <code>.*</code> for the imports on demand
+     */
+    public List<String> getImports() {
+        return imports;
+    }
+
+    /**
+     * @return the simple identifiers used in the source, outside of the
+     * package and import declarations
+     */
+    public Set<String> getIdentifiers() {
+        return identifiers;
+    }
+
+    /**
+     * @return the fully qualified name of the primary type
+     */
+    public String getFullClassName() {
+        return packageName.isEmpty() ? typeName : packageName + "." + typeName;
+    }
+
+    @Override
+    public String toString() {
+        return "SourceMetadata{" + "packageName='" + packageName + '\'' + ", typeName='" + typeName + '\'' + ", javadoc='" + javadoc + '\'' + '}';
+    }
+}
@@ -0,0 +1,371 @@
+package com.opencellsoft.utils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * {@link SourceMetadataExtractor} class
+ * <p>
+ * Extract the {@link SourceMetadata} of a java source in a single pass.
+ * <p>
+ * The source is read by a lightweight tokenizer which skips comments, string,
+ * text block and character literals, and only looks at the top level of the
+ * compilation unit: the <code>package</code> declaration, and the first
+ * <code>public</code> type declaration (<code>class</code>,
+ * <code>interface</code>, <code>enum</code>, <code>record</code> or
+ * <code>@interface</code>), or the first type declaration if none is public.
+ * The javadoc of that type is the last <code>/** ... *&#47;</code> comment
+ * before it, annotations and modifiers included. Its lines are joined as
+ * before the extractor, without the stars and the slashes, so the
+ * descriptions of the scripts do not change.
+ * <p>
+ * The imports of the source, and the identifiers used anywhere in it, are
+ * only collected when asked for, to find the other scripts it depends on.
+ *
+ * @author mohammed stitane
+ */
+public final class SourceMetadataExtractor {
+
+    private static final Pattern LINE_BREAKS = Pattern.compile("\\r|\\n");
+    private static final Pattern STARS = Pattern.compile("\\s\\*|\\*\\s");
+
+    private SourceMetadataExtractor() {
+    }
+
+    /**
+     * @param source the java source
+     * @return the metadata of the source, with its imports and identifiers
+     */
+    public static SourceMetadata extract(CharSequence source) {
+        return extract(source, true);
+    }
+
+    /**
+     * @param source           the java source
+     * @param withDependencies true to collect the imports and identifiers of
+     *                         the source
+     * @return the metadata of the source
+     */
+    public static SourceMetadata extract(CharSequence source, boolean withDependencies) {
+        return new Scanner(source, withDependencies).scan();
+    }
+
+    /**
+     * The state of one scan. Offsets of the javadoc comments are kept instead
+     * of their text, which is only built for the selected type.
+     */
+    private static final class Scanner {
+
+        private final CharSequence src;
+        private final int length;
+        private final boolean withDependencies;
+        private int pos;
+
+        private int braceDepth;
+        private int parenDepth;
+
+        private StringBuilder packageName;
+        private boolean inPackage;
+        private boolean inImport;
+        private StringBuilder importName;
+        private final List<String> imports = new ArrayList<>();
+        private final Set<String> identifiers = new HashSet<>();
+
+        private boolean publicModifier;
+        private boolean expectTypeName;
+        private boolean typeIsPublic;
+        private int typeJavadocStart = -1;
+        private int typeJavadocEnd = -1;
+
+        private int javadocStart = -1;
+        private int javadocEnd = -1;
+
+        private String typeName;
+        private boolean typeComplete;
+        private int selectedJavadocStart = -1;
+        private int selectedJavadocEnd = -1;
+
+        private Scanner(CharSequence src, boolean withDependencies) {
+            this.src = src;
+            this.length = src.length();
+            this.withDependencies = withDependencies;
+        }
+
+        private SourceMetadata scan() {
+            while (pos < length) {
+                char c = src.charAt(pos);
+                if (c == '/' && peek(1) == '*') {
+                    blockComment();
+                } else if (c == '/' && peek(1) == '/') {
+                    skipLine();
+                } else if (c == '"') {
+                    stringLiteral();
+                } else if (c == '\'') {
+                    charLiteral();
+                } else if (c == '@') {
+                    annotation();
+                } else if (Character.isJavaIdentifierStart(c)) {
+                    int start = pos;
+                    while (pos < length && Character.isJavaIdentifierPart(src.charAt(pos))) {
+                        pos++;
+                    }
+                    typeComplete |= word(start, pos);
+                } else {
+                    symbol(c);
+                    pos++;
+                }
+            }
+            String javadoc = selectedJavadocStart < 0 ? "" : normalizeJavadoc(selectedJavadocStart, selectedJavadocEnd);
+            return new SourceMetadata(packageName == null ? "" : packageName.toString(), typeName, javadoc, imports, identifiers);
+        }
+
+        private char peek(int offset) {
+            int i = pos + offset;
+            return i < length ? src.charAt(i) : '\0';
+        }
+
+        private boolean topLevel() {
+            return braceDepth == 0 && parenDepth == 0;
+        }
+
+        private void blockComment() {
+            int start = pos;
+            int end = indexOf("*/", pos + 2);
+            pos = end < 0 ? length : end + 2;
+            boolean javadoc = peekAt(start + 2) == '*' && peekAt(start + 3) != '/';
+            if (javadoc && topLevel()) {
+                javadocStart = start + 3;
+                javadocEnd = end < 0 ? length : end;
+            }
+        }
+
+        private char peekAt(int i) {
+            return i < length ? src.charAt(i) : '\0';
+        }
+
+        private int indexOf(String token, int from) {
+            int last = length - token.length();
+            for (int i = from; i <= last; i++) {
+                if (src.charAt(i) == token.charAt(0) && src.charAt(i + 1) == token.charAt(1)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void skipLine() {
+            while (pos < length && src.charAt(pos) != '\n') {
+                pos++;
+            }
+        }
+
+        private void stringLiteral() {
+            if (peek(1) == '"' && peek(2) == '"') {
+                // text block
+                pos += 3;
+                while (pos < length) {
+                    char c = src.charAt(pos);
+                    if (c == '\\') {
+                        pos += 2;
+                    } else if (c == '"' && peek(1) == '"' && peek(2) == '"') {
+                        pos += 3;
+                        return;
+                    } else {
+                        pos++;
+                    }
+                }
+                return;
+            }
+            pos++;
+            while (pos < length) {
+                char c = src.charAt(pos);
+                if (c == '\\') {
+                    pos += 2;
+                } else {
+                    pos++;
+                    if (c == '"' || c == '\n') {
+                        return;
+                    }
+                }
+            }
+        }
+
+        private void charLiteral() {
+            pos++;
+            while (pos < length) {
+                char c = src.charAt(pos);
+                if (c == '\\') {
+                    pos += 2;
+                } else {
+                    pos++;
+                    if (c == '\'' || c == '\n') {
+                        return;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Skip an annotation name, its arguments are scanned as usual. An
+         * <code>@interface</code> declaration is a type declaration.
+         */
+        private void annotation() {
+            pos++;
+            while (pos < length && Character.isWhitespace(src.charAt(pos))) {
+                pos++;
+            }
+            int start = pos;
+            int simpleName = start;
+            while (pos < length && (Character.isJavaIdentifierPart(src.charAt(pos)) || src.charAt(pos) == '.')) {
+                if (src.charAt(pos) == '.') {
+                    simpleName = pos + 1;
+                }
+                pos++;
+            }
+            if (topLevel() && !inImport && !inPackage && regionMatches(start, pos, "interface")) {
+                typeKeyword();
+            } else if (simpleName < pos) {
+                identifier(simpleName, pos);
+            }
+        }
+
+        /**
+         * @return true if the scan is complete
+         */
+        private boolean word(int start, int end) {
+            if (!topLevel()) {
+                identifier(start, end);
+                return false;
+            }
+            if (inPackage) {
+                packageName.append(src, start, end);
+                return false;
+            }
+            if (inImport) {
+                if (withDependencies && !regionMatches(start, end, "static")) {
+                    importName.append(src, start, end);
+                }
+                return false;
+            }
+            if (expectTypeName) {
+                expectTypeName = false;
+                return !typeComplete && selectType(src.subSequence(start, end).toString());
+            }
+            identifier(start, end);
+            if (regionMatches(start, end, "package")) {
+                inPackage = true;
+                packageName = new StringBuilder();
+            } else if (regionMatches(start, end, "import")) {
+                inImport = true;
+                importName = new StringBuilder();
+            } else if (regionMatches(start, end, "public")) {
+                publicModifier = true;
+            } else if (regionMatches(start, end, "class") || regionMatches(start, end, "interface") || regionMatches(start, end, "enum")
+                    || regionMatches(start, end, "record")) {
+                typeKeyword();
+            }
+            return false;
+        }
+
+        private void identifier(int start, int end) {
+            if (withDependencies) {
+                identifiers.add(src.subSequence(start, end).toString());
+            }
+        }
+
+        private void typeKeyword() {
+            expectTypeName = true;
+            typeIsPublic = publicModifier;
+            typeJavadocStart = javadocStart;
+            typeJavadocEnd = javadocEnd;
+        }
+
+        /**
+         * @return true if the type is public, so no better type can be found
+         */
+        private boolean selectType(String name) {
+            if (typeName == null || typeIsPublic) {
+                typeName = name;
+                selectedJavadocStart = typeJavadocStart;
+                selectedJavadocEnd = typeJavadocEnd;
+            }
+            return typeIsPublic;
+        }
+
+        private void symbol(char c) {
+            switch (c) {
+                case '.':
+                    if (inPackage && topLevel()) {
+                        packageName.append('.');
+                    } else if (inImport && topLevel() && withDependencies) {
+                        importName.append('.');
+                    }
+                    break;
+                case '*':
+                    if (inImport && topLevel() && withDependencies) {
+                        importName.append('*');
+                    }
+                    break;
+                case '(':
+                    parenDepth++;
+                    break;
+                case ')':
+                    parenDepth = Math.max(0, parenDepth - 1);
+                    break;
+                case '{':
+                    endOfDeclaration();
+                    braceDepth++;
+                    break;
+                case '}':
+                    braceDepth = Math.max(0, braceDepth - 1);
+                    endOfDeclaration();
+                    break;
+                case ';':
+                    endOfDeclaration();
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void endOfDeclaration() {
+            if (topLevel()) {
+                if (inImport && withDependencies && importName.length() > 0) {
+                    imports.add(importName.toString());
+                }
+                inPackage = false;
+                inImport = false;
+                publicModifier = false;
+                expectTypeName = false;
+                javadocStart = -1;
+                javadocEnd = -1;
+            }
+        }
+
+        private boolean regionMatches(int start, int end, String word) {
+            if (end - start != word.length()) {
+                return false;
+            }
+            for (int i = 0; i < word.length(); i++) {
+                if (src.charAt(start + i) != word.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Join the lines of the javadoc as the regex based conversion did,
+         * so the descriptions of the scripts deployed before do not change.
+         */
+        private String normalizeJavadoc(int start, int end) {
+            String text = src.subSequence(start, end).toString().trim();
+            text = LINE_BREAKS.matcher(text).replaceAll("");
+            text = STARS.matcher(text).replaceAll("");
+            return text.replace("*/", "").replace("/", "");
+        }
+    }
+}
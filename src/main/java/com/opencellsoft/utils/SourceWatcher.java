@@ -0,0 +1,147 @@
+package com.opencellsoft.utils;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SourceWatcher} class
+ * <p>
+ * Watch java sources with a {@link WatchService}: every file of a directory
+ * tree, sub directories created later included, or single files. The
+ * changes are debounced: {@link #take()} returns once no file changed for
+ * <code>debounce</code> milliseconds, so an editor saving several files, or
+ * writing a file several times, triggers a single deployment.
+ *
+ * @author mohammed stitane
+ */
+public class SourceWatcher implements Closeable {
+
+    private final WatchService watchService;
+    private final long debounce;
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+    private final Set<WatchKey> recursive = new HashSet<>();
+    private final Set<Path> files = new HashSet<>();
+
+    /**
+     * @param roots    the directories watched with their sub directories
+     * @param files    the single files watched
+     * @param debounce the quiet period in milliseconds
+     * @throws IOException if a directory can not be watched
+     */
+    public SourceWatcher(List<File> roots, List<File> files, long debounce) throws IOException {
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.debounce = debounce;
+        for (File root : roots) {
+            registerTree(root.getAbsoluteFile().toPath(), null);
+        }
+        for (File file : files) {
+            Path path = file.getAbsoluteFile().toPath();
+            this.files.add(path);
+            register(path.getParent());
+        }
+    }
+
+    /**
+     * Wait for changed java files.
+     *
+     * @return the java files created or modified, without duplicates
+     * @throws InterruptedException if the thread is interrupted while waiting
+     * @throws IOException          if a new directory can not be watched
+     */
+    public List<File> take() throws InterruptedException, IOException {
+        Set<Path> changed = new LinkedHashSet<>();
+        while (changed.isEmpty()) {
+            WatchKey key = watchService.take();
+            while (key != null) {
+                collect(key, changed);
+                key = watchService.poll(debounce, TimeUnit.MILLISECONDS);
+            }
+            changed.removeIf(path -> !Files.isRegularFile(path));
+        }
+        List<File> result = new ArrayList<>();
+        for (Path path : changed) {
+            result.add(path.toFile());
+        }
+        return result;
+    }
+
+    private void collect(WatchKey key, Set<Path> changed) throws IOException {
+        Path dir = directories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (dir == null || event.kind() == OVERFLOW) {
+                continue;
+            }
+            Path child = dir.resolve((Path) event.context());
+            if (recursive.contains(key)) {
+                if (event.kind() == ENTRY_CREATE && Files.isDirectory(child)) {
+                    registerTree(child, changed);
+                } else if (child.getFileName().toString().endsWith(".java")) {
+                    changed.add(child);
+                }
+            } else if (files.contains(child)) {
+                changed.add(child);
+            }
+        }
+        if (!key.reset()) {
+            directories.remove(key);
+            recursive.remove(key);
+        }
+    }
+
+    /**
+     * Watch a directory tree.
+     *
+     * @param found the set receiving the java files of the tree, null to
+     *              ignore them
+     */
+    private void registerTree(Path root, final Set<Path> found) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                recursive.add(register(dir));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (found != null && file.getFileName().toString().endsWith(".java")) {
+                    found.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private WatchKey register(Path dir) throws IOException {
+        WatchKey key = dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+        directories.put(key, dir);
+        return key;
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+}
@@ -0,0 +1,72 @@
+package com.opencellsoft.utils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TokenBucket} class
+ * <p>
+ * Bound the rate of requests, or of bytes, sent to an endpoint. Tokens are
+ * added at <code>rate</code> per second, up to <code>capacity</code> tokens
+ * which can be spent in a burst. Taking more tokens than are available puts
+ * the bucket in debt, and the caller waits until the debt is paid back, so a
+ * request bigger than the capacity is still sent, at the configured rate.
+ * <p>
+ * The bucket is shared by all the threads sending requests to the endpoint:
+ * the tokens are reserved under a lock, and the wait happens outside of it.
+ *
+ * @author mohammed stitane
+ */
+public class TokenBucket {
+
+    private final double rate;
+    private final double capacity;
+
+    private double tokens;
+    private long last;
+
+    /**
+     * @param rate     the number of tokens added per second
+     * @param capacity the maximum number of tokens, the bucket starts full
+     */
+    public TokenBucket(double rate, double capacity) {
+        this.rate = rate;
+        this.capacity = capacity;
+        this.tokens = capacity;
+        this.last = now();
+    }
+
+    /**
+     * Take tokens, and wait until they are available.
+     *
+     * @param permits the number of tokens to take
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public void acquire(long permits) throws InterruptedException {
+        long wait = reserve(permits);
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    /**
+     * Take tokens, without waiting.
+     *
+     * @param permits the number of tokens to take
+     * @return how long the caller must wait for the tokens, in nanoseconds
+     */
+    public synchronized long reserve(long permits) {
+        long now = now();
+        tokens = Math.min(capacity, tokens + (now - last) * rate / 1e9);
+        last = now;
+        tokens -= permits;
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / rate * 1e9);
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    protected long now() {
+        return System.nanoTime();
+    }
+}
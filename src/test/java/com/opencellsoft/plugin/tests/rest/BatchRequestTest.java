@@ -0,0 +1,138 @@
+package com.opencellsoft.plugin.tests.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.opencellsoft.utils.BatchRequest;
+import com.opencellsoft.utils.ErrorInfo;
+import com.opencellsoft.utils.FileContent;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BatchRequestTest {
+
+    private File dir;
+    private List<File> files;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("batch").toFile();
+        files = new ArrayList<>();
+        // files of 10, 20, 30, 40 and 50 bytes
+        for (int i = 1; i <= 5; i++) {
+            File file = new File(dir, "s" + i + ".json");
+            byte[] content = new byte[i * 10];
+            Arrays.fill(content, (byte) 'a');
+            content[0] = '"';
+            content[content.length - 1] = '"';
+            Files.write(file.toPath(), content);
+            files.add(file);
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    private static List<Integer> sizes(List<BatchRequest> batches) {
+        List<Integer> sizes = new ArrayList<>();
+        for (BatchRequest batch : batches) {
+            sizes.add(batch.size());
+        }
+        return sizes;
+    }
+
+    private BatchRequest batch(int count) {
+        return BatchRequest.split(files.subList(0, count), count, 0, FileContent.DISK).get(0);
+    }
+
+    private static List<ErrorInfo> map(BatchRequest batch, String body) {
+        return batch.mapResults(200, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void splitsByCountKeepingTheOrder() throws Exception {
+        List<BatchRequest> batches = BatchRequest.split(files, 2, 0, FileContent.DISK);
+        assertEquals(Arrays.asList(2, 2, 1), sizes(batches));
+        assertEquals(Arrays.asList("batch-1", "batch-2", "batch-3"), Arrays.asList(batches.get(0).getName(), batches.get(1).getName(), batches.get(2).getName()));
+        assertEquals(files.subList(2, 4), batches.get(1).getFiles());
+        assertEquals(70, batches.get(1).getBytes());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        batches.get(0).toEntity(FileContent.DISK).write(out);
+        String expected = "[" + new String(Files.readAllBytes(files.get(0).toPath()), StandardCharsets.UTF_8) + ","
+                + new String(Files.readAllBytes(files.get(1).toPath()), StandardCharsets.UTF_8) + "]";
+        assertEquals(expected, new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void splitsByBytesAndSendsBiggerFilesAlone() {
+        assertEquals(Arrays.asList(3, 1, 1), sizes(BatchRequest.split(files, 10, 60, FileContent.DISK)));
+        assertEquals(Arrays.asList(1, 1, 1, 1, 1), sizes(BatchRequest.split(files, 10, 15, FileContent.DISK)));
+        assertEquals(Arrays.asList(5), sizes(BatchRequest.split(files, 10, 0, FileContent.DISK)));
+        assertEquals(Arrays.asList(2, 1, 1, 1), sizes(BatchRequest.split(files, 2, 50, FileContent.DISK)));
+    }
+
+    @Test
+    public void mapsTheResultOfEachItem() {
+        BatchRequest batch = batch(3);
+        List<ErrorInfo> results = map(batch, "[{\"status\":\"SUCCESS\"},{\"status\":\"FAIL\",\"message\":\"invalid script\"},{\"status\":201}]");
+        assertNull(results.get(0));
+        assertEquals("invalid script", results.get(1).getMessage());
+        assertNull(results.get(2));
+
+        results = map(batch, "{\"actionStatus\":{\"status\":\"SUCCESS\"},\"results\":[{\"status\":409,\"message\":\"conflict\"},{\"status\":\"SUCCESS\"},{}]}");
+        assertEquals(409, results.get(0).getErrorCode());
+        assertEquals("conflict", results.get(0).getMessage());
+        assertNull(results.get(1));
+        assertNull("no status", results.get(2));
+    }
+
+    @Test
+    public void failsEveryItemOnAFailedResponse() {
+        BatchRequest batch = batch(2);
+        List<ErrorInfo> results = batch.mapResults(500, "boom".getBytes(StandardCharsets.UTF_8));
+        assertEquals(500, results.get(0).getErrorCode());
+        assertEquals("boom", results.get(1).getMessage());
+
+        results = map(batch, "{\"actionStatus\":{\"status\":\"FAIL\",\"errorCode\":\"INVALID_PARAMETER\",\"message\":\"invalid request\"}}");
+        assertEquals("invalid request", results.get(0).getMessage());
+        assertEquals("invalid request", results.get(1).getMessage());
+
+        // a top-level failure wins over the items
+        results = map(batch, "{\"status\":\"FAIL\",\"message\":\"rejected\",\"results\":[{\"status\":\"SUCCESS\"},{\"status\":\"SUCCESS\"}]}");
+        assertEquals("rejected", results.get(0).getMessage());
+        assertEquals("rejected", results.get(1).getMessage());
+    }
+
+    @Test
+    public void appliesTheStatusWithoutItems() {
+        BatchRequest batch = batch(2);
+        assertEquals(Arrays.asList(null, null), map(batch, ""));
+        assertEquals(Arrays.asList(null, null), map(batch, "not json"));
+        assertEquals(Arrays.asList(null, null), map(batch, "{\"actionStatus\":{\"status\":\"SUCCESS\"}}"));
+        assertEquals(Arrays.asList(null, null), map(batch, "{\"status\":\"SUCCESS\",\"warnings\":[]}"));
+    }
+
+    @Test
+    public void failsEveryItemOnAShortResultArray() {
+        BatchRequest batch = batch(3);
+        List<ErrorInfo> results = map(batch, "[{\"status\":\"SUCCESS\"},{\"status\":\"SUCCESS\"}]");
+        assertEquals(3, results.size());
+        for (ErrorInfo result : results) {
+            assertEquals("The response holds 2 result(s) for 3 file(s)", result.getMessage());
+        }
+    }
+}
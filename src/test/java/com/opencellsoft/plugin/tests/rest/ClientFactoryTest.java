@@ -0,0 +1,56 @@
+package com.opencellsoft.plugin.tests.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import javax.ws.rs.client.Client;
+
+import com.opencellsoft.utils.ClientFactory;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.Test;
+
+public class ClientFactoryTest {
+
+    @Test
+    public void rejectsDisablingKeepAliveOnTheJdkConnectors() {
+        for (String connector : new String[] { ClientFactory.DEFAULT_CONNECTOR, ClientFactory.HTTP2_CONNECTOR }) {
+            ClientFactory factory = new ClientFactory();
+            factory.setConnector(connector);
+            factory.setKeepAlive(false);
+            try {
+                factory.newClient().close();
+                fail("keepAlive=false accepted by " + connector);
+            } catch (MojoExecutionException ex) {
+                assertTrue(ex.getMessage(), ex.getMessage().contains("always keeps the connections alive"));
+            }
+        }
+    }
+
+    @Test
+    public void closesTheConnectionsWhenKeepAliveIsDisabled() throws Exception {
+        ClientFactory factory = new ClientFactory();
+        factory.setConnector(ClientFactory.APACHE_CONNECTOR);
+        factory.setKeepAlive(false);
+        Client client = factory.newClient();
+        try (RecordingServer server = new RecordingServer()) {
+            assertEquals(200, client.target(server.getUri()).request().get().getStatus());
+            assertEquals("close", server.getRequests().get(0).connection.toLowerCase());
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void rejectsAnUnknownCompression() {
+        ClientFactory factory = new ClientFactory();
+        factory.setRequestCompression("brotli");
+        try {
+            factory.newClient().close();
+            fail("brotli compression accepted");
+        } catch (MojoExecutionException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().contains("Unknown request compression [brotli]"));
+        }
+    }
+}
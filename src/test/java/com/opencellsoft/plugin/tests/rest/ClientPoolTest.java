@@ -0,0 +1,48 @@
+package com.opencellsoft.plugin.tests.rest;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import javax.ws.rs.client.Client;
+
+import com.opencellsoft.utils.ClientFactory;
+import com.opencellsoft.utils.ClientPool;
+
+import org.junit.Test;
+
+public class ClientPoolTest {
+
+    private static void assertClosed(Client client) {
+        try {
+            client.target("http://localhost");
+            fail("client is not closed");
+        } catch (IllegalStateException expected) {
+            // closed
+        }
+    }
+
+    @Test
+    public void sharesTheClientUntilTheLastRelease() throws Exception {
+        ClientFactory factory = new ClientFactory();
+        ClientFactory other = new ClientFactory();
+        other.setReadTimeout(1000);
+
+        Client first = ClientPool.acquire(factory);
+        Client second = ClientPool.acquire(new ClientFactory());
+        Client third = ClientPool.acquire(other);
+        assertSame(first, second);
+        assertNotSame(first, third);
+
+        ClientPool.release(first);
+        first.target("http://localhost");
+        ClientPool.release(second);
+        assertClosed(first);
+        ClientPool.release(third);
+        assertClosed(third);
+
+        Client next = ClientPool.acquire(factory);
+        assertNotSame(first, next);
+        ClientPool.release(next);
+    }
+}
@@ -0,0 +1,88 @@
+package com.opencellsoft.plugin.tests.rest;
+
+import static org.junit.Assert.assertEquals;
+
+import com.opencellsoft.utils.ConcurrencyLimiter;
+
+import org.junit.Test;
+
+public class ConcurrencyLimiterTest {
+
+    private static final long MILLIS = 1000000L;
+
+    /**
+     * Send a full window of requests, using the whole limit, all answered
+     * after <code>latency</code> milliseconds.
+     */
+    private static void window(ConcurrencyLimiter limiter, long latency) throws InterruptedException {
+        int sent = 0;
+        while (sent < ConcurrencyLimiter.MIN_WINDOW || sent < limiter.getLimit()) {
+            int limit = limiter.getLimit();
+            for (int i = 0; i < limit; i++) {
+                limiter.acquire();
+            }
+            for (int i = 0; i < limit; i++) {
+                limiter.release(latency * MILLIS, false);
+            }
+            sent += limit;
+        }
+    }
+
+    @Test
+    public void growsWhileLatencyIsFlat() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(12, 2.0);
+        assertEquals(1, limiter.getLimit());
+        window(limiter, 10);
+        assertEquals(2, limiter.getLimit());
+        window(limiter, 10);
+        assertEquals(4, limiter.getLimit());
+        window(limiter, 10);
+        assertEquals(8, limiter.getLimit());
+        window(limiter, 10);
+        assertEquals(12, limiter.getLimit());
+        window(limiter, 10);
+        assertEquals(12, limiter.getLimit());
+    }
+
+    @Test
+    public void backsOffOnOverloadAndRisingLatency() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(32, 2.0);
+        window(limiter, 10);
+        window(limiter, 10);
+        window(limiter, 10);
+        assertEquals(8, limiter.getLimit());
+
+        limiter.acquire();
+        limiter.acquire();
+        limiter.release(0, true);
+        limiter.release(0, true);
+        assertEquals("halved once per window", 4, limiter.getLimit());
+
+        window(limiter, 10);
+        assertEquals("no increase in the window of a decrease", 4, limiter.getLimit());
+        window(limiter, 10);
+        assertEquals("additive increase after the first decrease", 5, limiter.getLimit());
+        window(limiter, 50);
+        assertEquals(3, limiter.getLimit());
+    }
+
+    @Test
+    public void keepsHalvingWhileEveryRequestIsRejected() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(16, 2.0);
+        for (int i = 0; i < 4; i++) {
+            window(limiter, 10);
+        }
+        assertEquals(16, limiter.getLimit());
+
+        limiter.acquire();
+        limiter.release(0, true);
+        assertEquals(8, limiter.getLimit());
+        for (int expected : new int[] { 4, 2, 1, 1 }) {
+            for (int i = 0; i < ConcurrencyLimiter.MIN_WINDOW; i++) {
+                limiter.acquire();
+                limiter.release(0, true);
+            }
+            assertEquals("halved once per window", expected, limiter.getLimit());
+        }
+    }
+}
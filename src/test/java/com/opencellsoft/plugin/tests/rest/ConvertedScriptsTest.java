@@ -0,0 +1,78 @@
+package com.opencellsoft.plugin.tests.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import javax.ws.rs.core.StreamingOutput;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.opencellsoft.dto.ScriptInstance;
+import com.opencellsoft.utils.ConvertedScripts;
+import com.opencellsoft.utils.Digests;
+
+import org.junit.Test;
+
+public class ConvertedScriptsTest {
+
+    private static final ObjectWriter WRITER = new ObjectMapper().writerFor(ScriptInstance.class);
+
+    private static ScriptInstance script(String code) {
+        ScriptInstance script = new ScriptInstance();
+        script.setCode(code);
+        script.setDescription("Ünïcode description");
+        script.setType("JAVA");
+        script.setScript("package org;\npublic class A {}\n");
+        return script;
+    }
+
+    @Test
+    public void serializesTheScriptsKeptInMemory() throws Exception {
+        ConvertedScripts scripts = new ConvertedScripts(WRITER);
+        ScriptInstance script = script("org.A");
+        // never written to disk
+        File file = new File("target/does-not-exist/org.A.json");
+        scripts.put(file, script);
+        byte[] expected = WRITER.writeValueAsBytes(script);
+
+        assertEquals(script, scripts.get(new File(file.getAbsolutePath())));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        scripts.writeTo(file, out);
+        // the stream is left open, so scripts can be written after one another
+        out.write(']');
+        assertEquals(new String(expected, StandardCharsets.UTF_8) + "]", new String(out.toByteArray(), StandardCharsets.UTF_8));
+
+        out = new ByteArrayOutputStream();
+        ((StreamingOutput) scripts.toEntity(file)).write(out);
+        assertEquals(new String(expected, StandardCharsets.UTF_8), new String(out.toByteArray(), StandardCharsets.UTF_8));
+        assertEquals(Digests.sha256(expected), scripts.sha256(file));
+        assertTrue(scripts.size(file) >= expected.length - 64);
+        assertTrue(scripts.size(file) <= expected.length + 64);
+    }
+
+    @Test
+    public void readsTheOtherFilesFromDisk() throws Exception {
+        File file = File.createTempFile("script", ".json");
+        try {
+            byte[] content = "{\"code\":\"manual\"}".getBytes(StandardCharsets.UTF_8);
+            Files.write(file.toPath(), content);
+            ConvertedScripts scripts = new ConvertedScripts(WRITER);
+            scripts.put(new File(file.getParentFile(), "other.json"), script("org.Other"));
+
+            assertNull(scripts.get(file));
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            scripts.writeTo(file, out);
+            assertEquals("{\"code\":\"manual\"}", new String(out.toByteArray(), StandardCharsets.UTF_8));
+            assertEquals(content.length, scripts.size(file));
+            assertEquals(Digests.sha256(content), scripts.sha256(file));
+        } finally {
+            Files.delete(file.toPath());
+        }
+    }
+}
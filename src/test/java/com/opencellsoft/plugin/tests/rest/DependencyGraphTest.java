@@ -0,0 +1,63 @@
+package com.opencellsoft.plugin.tests.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.opencellsoft.utils.DependencyGraph;
+import com.opencellsoft.utils.SourceMetadata;
+import com.opencellsoft.utils.SourceMetadataExtractor;
+
+import org.junit.Test;
+
+public class DependencyGraphTest {
+
+    private final Map<File, SourceMetadata> scripts = new LinkedHashMap<>();
+
+    private File script(String source) {
+        SourceMetadata metadata = SourceMetadataExtractor.extract(source);
+        File file = new File("scripts", metadata.getFullClassName() + ".json");
+        scripts.put(file, metadata);
+        return file;
+    }
+
+    @Test
+    public void layersFollowDependencies() {
+        File base = script("package a;\npublic class Base {}\n");
+        File child = script("package a;\npublic class Child extends Base {}\n");
+        File imported = script("package b;\nimport a.Child;\npublic class Imported { Child c; }\n");
+        File onDemand = script("package c;\nimport a.*;\npublic class OnDemand { Base b; }\n");
+        File staticMember = script("package d;\nimport static a.Base.CONSTANT;\npublic class StaticMember {}\n");
+        File unrelated = script("package e;\npublic class Unrelated { String base = \"Base\"; }\n");
+        File otherPackage = script("package f;\npublic class OtherPackage { Base b; }\n");
+
+        DependencyGraph graph = DependencyGraph.of(scripts);
+        assertEquals(4, graph.size());
+        assertEquals(Collections.singleton(DependencyGraph.normalize(base)), graph.getDependencies(child));
+        assertTrue(graph.getDependencies(unrelated).isEmpty());
+        assertTrue("not imported", graph.getDependencies(otherPackage).isEmpty());
+
+        List<File> files = Arrays.asList(imported, onDemand, child, staticMember, base, unrelated, otherPackage);
+        assertEquals(Arrays.asList(Arrays.asList(base, unrelated, otherPackage), Arrays.asList(onDemand, child, staticMember), Arrays.asList(imported)),
+                graph.layers(files));
+        assertEquals("missing dependencies are ignored", Collections.singletonList(Arrays.asList(imported, onDemand)),
+                graph.layers(Arrays.asList(imported, onDemand)));
+    }
+
+    @Test
+    public void cyclesGoLast() {
+        File first = script("package a;\npublic class First { Second s; }\n");
+        File second = script("package a;\npublic class Second { First f; }\n");
+        File dependent = script("package a;\npublic class Dependent { First f; }\n");
+        File free = script("package a;\npublic class Free {}\n");
+
+        assertEquals(Arrays.asList(Arrays.asList(free), Arrays.asList(first, second, dependent)),
+                DependencyGraph.of(scripts).layers(Arrays.asList(first, second, dependent, free)));
+    }
+}
@@ -0,0 +1,54 @@
+package com.opencellsoft.plugin.tests.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import com.opencellsoft.utils.DeployJournal;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.Test;
+
+public class DeployJournalTest {
+
+    private static final String TARGET = "POST http://localhost/opencell/api/rest/scriptInstance/createOrUpdate";
+
+    @Test
+    public void resumesFromTheAcknowledgedFiles() throws Exception {
+        File dir = Files.createTempDirectory("journal").toFile();
+        try {
+            File file = new File(dir, "rest-maven-plugin/journal.log");
+            File a = new File(dir, "A.json");
+            File b = new File(dir, "B.json");
+            File c = new File(dir, "C.json");
+
+            DeployJournal journal = DeployJournal.open(file, false, 0);
+            journal.record(a, "ha", TARGET, 200);
+            journal.record(b, "hb", TARGET, 200);
+            journal.record(b, "hb", TARGET, 500);
+            journal.record(c, "hc", TARGET, 201);
+            journal.close();
+            // a line torn by a crash
+            Files.write(file.toPath(), "2026-01-01T00:00:00Z\t20".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+            journal = DeployJournal.open(file, true, 1000);
+            assertEquals(2, journal.size());
+            assertTrue(journal.isAcknowledged(a, "ha", TARGET));
+            assertFalse(journal.isAcknowledged(b, "hb", TARGET));
+            assertFalse(journal.isAcknowledged(c, "changed", TARGET));
+            assertFalse(journal.isAcknowledged(a, "ha", "POST http://other"));
+            journal.close();
+
+            journal = DeployJournal.open(file, false, 0);
+            assertEquals(0, journal.size());
+            assertFalse(file.exists());
+        } finally {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+}
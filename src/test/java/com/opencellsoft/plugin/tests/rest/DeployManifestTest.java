@@ -0,0 +1,99 @@
+package com.opencellsoft.plugin.tests.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import com.opencellsoft.utils.DeployManifest;
+import com.opencellsoft.utils.Digests;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.Test;
+
+public class DeployManifestTest {
+
+    private static final String POST = "POST http://localhost/scripts";
+
+    @Test
+    public void hashesWithSha256() throws Exception {
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", Digests.sha256("abc".getBytes(StandardCharsets.US_ASCII)));
+        File file = File.createTempFile("digest", ".txt");
+        try {
+            Files.write(file.toPath(), "abc".getBytes(StandardCharsets.US_ASCII));
+            assertEquals(Digests.sha256("abc".getBytes(StandardCharsets.US_ASCII)), Digests.sha256(file));
+        } finally {
+            Files.delete(file.toPath());
+        }
+    }
+
+    @Test
+    public void skipsUnchangedSourcesAndDeployedFilesAfterReload() throws Exception {
+        File dir = Files.createTempDirectory("manifest").toFile();
+        try {
+            File outDir = new File(dir, "scripts");
+            outDir.mkdirs();
+            File a = new File(dir, "A.java");
+            File b = new File(dir, "B.java");
+            File scriptA = new File(outDir, "org.A.json");
+            Files.write(scriptA.toPath(), new byte[] { 1 });
+
+            DeployManifest manifest = new DeployManifest();
+            manifest.recordConversion("org.A", a, "ha", "org.A.json");
+            manifest.recordConversion("org.B", b, "hb", "org.B.json");
+            manifest.recordDeployment(scriptA, "sa", POST, 200);
+            manifest.recordDeployment(new File(outDir, "org.B.json"), "sb", POST, 500);
+            File file = new File(dir, "state/manifest.json");
+            manifest.save(file);
+
+            DeployManifest loaded = DeployManifest.load(file);
+            assertEquals("org.A", loaded.findConverted(a, "ha", outDir));
+            assertNull("changed source", loaded.findConverted(a, "other", outDir));
+            assertNull("missing output", loaded.findConverted(b, "hb", outDir));
+            assertNull("unknown source", loaded.findConverted(new File(dir, "C.java"), "hc", outDir));
+
+            assertTrue(loaded.isDeployed(scriptA, "sa", POST));
+            assertFalse("changed content", loaded.isDeployed(scriptA, "other", POST));
+            assertFalse("other target", loaded.isDeployed(scriptA, "sa", "PUT http://localhost/scripts"));
+            assertFalse("failed status", loaded.isDeployed(new File(outDir, "org.B.json"), "sb", POST));
+        } finally {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+
+    @Test
+    public void loadsAnEmptyManifestWithoutFile() throws Exception {
+        DeployManifest manifest = DeployManifest.load(new File("target/does-not-exist/manifest.json"));
+        assertTrue(manifest.getScripts().isEmpty());
+        assertTrue(manifest.getTargets().isEmpty());
+    }
+
+    @Test
+    public void keepsOneScriptPerSource() throws Exception {
+        File dir = Files.createTempDirectory("manifest").toFile();
+        try {
+            File a = new File(dir, "A.java");
+            File b = new File(dir, "B.java");
+            Files.write(new File(dir, "org.Renamed.json").toPath(), new byte[] { 1 });
+            Files.write(new File(dir, "org.A.json").toPath(), new byte[] { 1 });
+
+            DeployManifest manifest = new DeployManifest();
+            manifest.recordConversion("org.A", a, "h1", "org.A.json");
+            // the class of the source was renamed
+            manifest.recordConversion("org.Renamed", a, "h2", "org.Renamed.json");
+            assertEquals(1, manifest.getScripts().size());
+            assertEquals("org.Renamed", manifest.findConverted(a, "h2", dir));
+
+            // another source now generates the same code
+            manifest.recordConversion("org.Renamed", b, "h3", "org.Renamed.json");
+            assertNull(manifest.findConverted(a, "h2", dir));
+            assertEquals("org.Renamed", manifest.findConverted(b, "h3", dir));
+        } finally {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.opencellsoft.plugin.tests.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+
+import com.opencellsoft.utils.DeployReport;
+import com.opencellsoft.utils.ErrorInfo;
+import com.opencellsoft.utils.RequestMetrics;
+
+import org.junit.Test;
+
+public class DeployReportTest {
+
+    @Test
+    public void nearestRankPercentiles() {
+        assertEquals(0, DeployReport.percentile(Arrays.<Double> asList(), 50), 0);
+        assertEquals(5, DeployReport.percentile(Arrays.asList(1d, 2d, 3d, 4d, 5d, 6d, 7d, 8d, 9d, 10d), 50), 0);
+        assertEquals(10, DeployReport.percentile(Arrays.asList(1d, 2d, 3d, 4d, 5d, 6d, 7d, 8d, 9d, 10d), 95), 0);
+        assertEquals(1, DeployReport.percentile(Arrays.asList(1d), 99), 0);
+    }
+
+    @Test
+    public void writesJsonAndJUnitReports() throws Exception {
+        DeployReport report = new DeployReport();
+        RequestMetrics ok = report.start("node1", "Ok.json", 1);
+        ok.attempt();
+        ok.responded(200);
+        ok.addBytesSent(100);
+        ok.finish(null);
+        RequestMetrics failed = report.start("node1", "Failed.json", 1);
+        failed.attempt();
+        failed.attempt();
+        failed.responded(503);
+        failed.finish(new ErrorInfo(503, "busy"));
+        report.finish();
+
+        Map<String, Object> summary = report.getSummary();
+        assertEquals(2, summary.get("requests"));
+        assertEquals(1, summary.get("failed"));
+        assertEquals(1, summary.get("retries"));
+        assertEquals(100L, summary.get("bytesSent"));
+
+        File dir = Files.createTempDirectory("report").toFile();
+        try {
+            report.write(dir);
+            String json = new String(Files.readAllBytes(new File(dir, DeployReport.JSON_REPORT).toPath()), StandardCharsets.UTF_8);
+            assertTrue(json.contains("\"p95Millis\""));
+            String xml = new String(Files.readAllBytes(new File(dir, DeployReport.JUNIT_REPORT).toPath()), StandardCharsets.UTF_8);
+            assertTrue(xml.contains("tests=\"2\" failures=\"1\""));
+            assertTrue(xml.contains("<failure message=\"[503:busy]\" type=\"503\""));
+        } finally {
+            for (File file : dir.listFiles()) {
+                file.delete();
+            }
+            dir.delete();
+        }
+    }
+}
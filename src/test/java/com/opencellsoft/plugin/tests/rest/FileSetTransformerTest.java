@@ -0,0 +1,87 @@
+package com.opencellsoft.plugin.tests.rest;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.opencellsoft.plugin.RestPlugin;
+import com.opencellsoft.utils.FileSetTransformer;
+
+import org.apache.maven.model.FileSet;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FileSetTransformerTest {
+
+    private Path dir;
+
+    @Before
+    public void createTree() throws IOException {
+        dir = Files.createTempDirectory("fileset");
+        for (String path : Arrays.asList("A.json", "B.json", "notes.txt", "sub/C.json", "sub/deep/D.json", "sub/deep/E.xml", "other/F.json",
+                ".git/G.json", "sub/.svn/H.json", "I.json~")) {
+            Path file = dir.resolve(path);
+            Files.createDirectories(file.getParent());
+            Files.write(file, path.getBytes());
+        }
+    }
+
+    @After
+    public void deleteTree() throws IOException {
+        FileUtils.deleteDirectory(dir.toFile());
+    }
+
+    private FileSet fileSet(List<String> includes, List<String> excludes) {
+        FileSet fs = new FileSet();
+        fs.setDirectory(dir.toString());
+        fs.setIncludes(includes);
+        fs.setExcludes(excludes);
+        return fs;
+    }
+
+    private List<File> plexus(FileSet fs) throws IOException {
+        List<File> files = FileUtils.getFiles(new File(fs.getDirectory()), String.join(",", fs.getIncludes()), String.join(",", fs.getExcludes()));
+        Collections.sort(files);
+        return files;
+    }
+
+    @Test
+    public void matchesPlexusPatterns() throws Exception {
+        List<List<List<String>>> cases = Arrays.asList(
+                Arrays.asList(Arrays.asList("*.json"), Collections.<String> emptyList()),
+                Arrays.asList(Arrays.asList("**/*.json"), Arrays.asList("sub/**")),
+                Arrays.asList(Arrays.asList("**/*.json"), Collections.<String> emptyList()),
+                Arrays.asList(Arrays.asList("**/deep/*"), Collections.<String> emptyList()),
+                Arrays.asList(Arrays.asList("sub/"), Arrays.asList("**/*.xml")),
+                Arrays.asList(Arrays.asList("?.json", "other/**"), Collections.<String> emptyList()),
+                Arrays.asList(Collections.<String> emptyList(), Arrays.asList("*.txt")));
+        for (List<List<String>> c : cases) {
+            FileSet fs = fileSet(c.get(0), c.get(1));
+            assertEquals(c.toString(), plexus(fs), new FileSetTransformer(new RestPlugin()).toFileList(fs));
+        }
+    }
+
+    @Test
+    public void overlappingFileSetsAreDeduplicated() throws Exception {
+        FileSet all = fileSet(Arrays.asList("**/*.json"), new ArrayList<String>());
+        FileSet top = fileSet(Arrays.asList("*.json"), new ArrayList<String>());
+        FileSet other = fileSet(Arrays.asList("other/*.json"), new ArrayList<String>());
+        other.setDirectory(dir.resolve("sub").resolve("..").toString());
+
+        List<File> files = new FileSetTransformer(new RestPlugin()).toFileList(Arrays.asList(top, other, all, null));
+        List<String> names = new ArrayList<>();
+        for (File file : files) {
+            names.add(dir.relativize(file.toPath()).toString().replace(File.separatorChar, '/'));
+        }
+        assertEquals(Arrays.asList("A.json", "B.json", "other/F.json", ".git/G.json", "sub/.svn/H.json", "sub/C.json", "sub/deep/D.json"), names);
+    }
+}
@@ -0,0 +1,175 @@
+package com.opencellsoft.plugin.tests.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TimeZone;
+
+import com.opencellsoft.utils.GitMetadataService;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.MergeCommand;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GitMetadataServiceTest {
+
+    private static final long T0 = 1500000000000L;
+
+    private File dir;
+    private Git git;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("git-metadata").toFile();
+        git = Git.init().setDirectory(dir).call();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        git.close();
+        FileUtils.deleteDirectory(dir);
+    }
+
+    private void write(String path, String content) throws Exception {
+        File file = new File(dir, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        git.add().addFilepattern(path).call();
+    }
+
+    private RevCommit commit(String author, int hour) throws Exception {
+        PersonIdent ident = new PersonIdent(author, author + "@opencellsoft.com", new Date(T0 + hour * 3600000L), TimeZone.getTimeZone("UTC"));
+        return git.commit().setMessage(author).setAuthor(ident).setCommitter(ident).call();
+    }
+
+    /**
+     * The last commit of the path according to <code>git log -1 -- path</code>.
+     */
+    private RevCommit log(String path) throws Exception {
+        Iterator<RevCommit> commits = git.log().addPath(path).setMaxCount(1).call().iterator();
+        return commits.hasNext() ? commits.next() : null;
+    }
+
+    @Test
+    public void resolvesTheSameLastCommitsAsThePerFileLog() throws Exception {
+        write("src/A.java", "a0");
+        write("src/B.java", "b0");
+        write("src/E.java", "e0");
+        write("src/F.java", "f0");
+        write("src/X.java", "x0");
+        commit("root", 1);
+        write("src/A.java", "a1");
+        commit("master1", 2);
+
+        git.checkout().setCreateBranch(true).setName("feature").call();
+        write("src/C.java", "c0");
+        write("src/E.java", "e1");
+        write("src/X.java", "x-feature");
+        commit("feature1", 3);
+
+        git.checkout().setName("master").call();
+        write("src/A.java", "a2");
+        write("src/X.java", "x-master");
+        commit("master2", 4);
+
+        git.checkout().setName("feature").call();
+        write("src/F.java", "f1");
+        commit("feature2", 5);
+
+        // X conflicts, and is resolved with the version of the feature branch
+        git.checkout().setName("master").call();
+        git.merge().include(git.getRepository().exactRef("refs/heads/feature")).setFastForward(MergeCommand.FastForwardMode.NO_FF).setCommit(false)
+                .call();
+        write("src/X.java", "x-feature");
+        commit("merger", 6);
+
+        write("src/G.java", "g0");
+        commit("master3", 7);
+        Files.write(new File(dir, "src/Untracked.java").toPath(), new byte[] { 1 });
+
+        List<String> paths = Arrays.asList("src/A.java", "src/B.java", "src/C.java", "src/E.java", "src/F.java", "src/G.java", "src/X.java");
+        List<File> files = new ArrayList<>();
+        for (String path : paths) {
+            files.add(new File(dir, path));
+        }
+        files.add(new File(dir, "src/Untracked.java"));
+
+        try (GitMetadataService service = GitMetadataService.open(new File(dir, "src"))) {
+            assertNotNull(service);
+            service.resolve(files);
+            for (String path : paths) {
+                RevCommit expected = log(path);
+                GitMetadataService.CommitInfo actual = service.getLastCommit(new File(dir, path));
+                assertNotNull(path, actual);
+                assertEquals(path, expected.name(), actual.getId());
+                assertEquals(path, expected.getAuthorIdent().getName(), actual.getAuthor());
+                assertEquals(path, expected.getCommitTime(), actual.getCommitTime());
+            }
+            assertNull(service.getLastCommit(new File(dir, "src/Untracked.java")));
+        }
+
+        // what the log returns: the merge changed none of the files
+        assertEquals("master2", log("src/A.java").getAuthorIdent().getName());
+        assertEquals("root", log("src/B.java").getAuthorIdent().getName());
+        assertEquals("feature1", log("src/C.java").getAuthorIdent().getName());
+        assertEquals("feature1", log("src/E.java").getAuthorIdent().getName());
+        assertEquals("feature2", log("src/F.java").getAuthorIdent().getName());
+        assertEquals("master3", log("src/G.java").getAuthorIdent().getName());
+        assertEquals("feature1", log("src/X.java").getAuthorIdent().getName());
+    }
+
+    @Test
+    public void resolvesFilesUntouchedSinceTheRootCommit() throws Exception {
+        write("A.java", "a0");
+        write("B.java", "b0");
+        commit("root", 1);
+        for (int i = 2; i < 20; i++) {
+            write("A.java", "a" + i);
+            commit("author" + i, i);
+        }
+
+        try (GitMetadataService service = GitMetadataService.open(dir)) {
+            service.resolve(Arrays.asList(new File(dir, "A.java"), new File(dir, "B.java")));
+            assertEquals("author19", service.getLastCommit(new File(dir, "A.java")).getAuthor());
+            assertEquals("root", service.getLastCommit(new File(dir, "B.java")).getAuthor());
+            assertEquals(log("B.java").getCommitTime(), service.getLastCommit(new File(dir, "B.java")).getCommitTime());
+        }
+    }
+
+    @Test
+    public void skipsTheFilesNotInHead() throws Exception {
+        write("src/A.java", "a0");
+        write("src/Removed.java", "r0");
+        commit("root", 1);
+        write("src/B.java", "b0");
+        commit("second", 2);
+        // still in the work tree, but no more in git
+        git.rm().addFilepattern("src/Removed.java").setCached(true).call();
+        commit("removal", 3);
+        Files.write(new File(dir, "src/Untracked.java").toPath(), new byte[] { 1 });
+
+        try (GitMetadataService service = GitMetadataService.open(dir)) {
+            service.resolve(Arrays.asList(new File(dir, "src/A.java"), new File(dir, "src/B.java"), new File(dir, "src/Removed.java"),
+                    new File(dir, "src/Untracked.java")));
+            assertEquals("root", service.getLastCommit(new File(dir, "src/A.java")).getAuthor());
+            assertEquals("second", service.getLastCommit(new File(dir, "src/B.java")).getAuthor());
+            assertNull(service.getLastCommit(new File(dir, "src/Removed.java")));
+            assertNull(service.getLastCommit(new File(dir, "src/Untracked.java")));
+            assertEquals(4, service.getLastCommits().size());
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.opencellsoft.plugin.tests.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+import com.opencellsoft.utils.ClientFactory;
+
+import org.junit.Test;
+
+public class Http2ConnectorTest {
+
+    private static Client newClient(String compression) throws Exception {
+        assumeTrue("http2 connector requires Java 11", !System.getProperty("java.specification.version").startsWith("1."));
+        ClientFactory factory = new ClientFactory();
+        factory.setConnector(ClientFactory.HTTP2_CONNECTOR);
+        factory.setRequestCompression(compression);
+        return factory.newClient();
+    }
+
+    @Test
+    public void sendsRequestsWithTheJdkClient() throws Exception {
+        Client client = newClient(ClientFactory.GZIP_COMPRESSION);
+        try (RecordingServer server = new RecordingServer()) {
+            server.answer("/missing", 404);
+            Response post = client.target(server.getUri()).path("scripts").request().header("Authorization", "Basic xx")
+                    .post(Entity.entity("{\"code\":\"A\"}", MediaType.APPLICATION_JSON_TYPE));
+            assertEquals(200, post.getStatus());
+            assertEquals("{\"status\":\"SUCCESS\"}", post.readEntity(String.class));
+
+            Response get = client.target(server.getUri()).path("missing").request().get();
+            assertEquals(404, get.getStatus());
+            assertEquals("{\"status\":\"FAIL\"}", get.readEntity(String.class));
+
+            RecordingServer.Request sent = server.getRequests().get(0);
+            assertEquals("POST", sent.method);
+            assertEquals("/scripts", sent.path);
+            assertEquals("Basic xx", sent.authorization);
+            assertEquals(ClientFactory.GZIP_COMPRESSION, sent.contentEncoding);
+            assertEquals("{\"code\":\"A\"}", sent.body);
+            RecordingServer.Request received = server.getRequests().get(1);
+            assertEquals("GET", received.method);
+            assertNull(received.authorization);
+            assertEquals("", received.body);
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void streamsBodiesLargerThanThePipe() throws Exception {
+        char[] chars = new char[3 * 1024 * 1024];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) ('a' + i % 26);
+        }
+        String body = new String(chars);
+        for (String compression : new String[] { ClientFactory.NO_COMPRESSION, ClientFactory.GZIP_COMPRESSION }) {
+            Client client = newClient(compression);
+            try (RecordingServer server = new RecordingServer()) {
+                Response put = client.target(server.getUri()).request().put(Entity.entity(body, MediaType.TEXT_PLAIN_TYPE));
+                assertEquals(compression, 200, put.getStatus());
+                RecordingServer.Request sent = server.getRequests().get(0);
+                assertEquals(compression, "PUT", sent.method);
+                assertTrue(compression, body.equals(sent.body));
+            } finally {
+                client.close();
+            }
+        }
+    }
+
+    @Test
+    public void failsWhenTheEntityCannotBeWritten() throws Exception {
+        Client client = newClient(ClientFactory.NO_COMPRESSION);
+        try (RecordingServer server = new RecordingServer()) {
+            StreamingOutput failing = out -> {
+                byte[] chunk = new byte[8192];
+                Arrays.fill(chunk, (byte) 'x');
+                for (int i = 0; i < 32; i++) {
+                    out.write(chunk);
+                }
+                throw new IOException("source gone");
+            };
+            try {
+                Response response = client.target(server.getUri()).request().post(Entity.entity(failing, MediaType.TEXT_PLAIN_TYPE));
+                fail("truncated request sent, status " + response.getStatus());
+            } catch (ProcessingException ex) {
+                // the request is aborted rather than sent truncated
+            }
+        } finally {
+            client.close();
+        }
+    }
+}
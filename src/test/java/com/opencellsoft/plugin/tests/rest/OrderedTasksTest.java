@@ -0,0 +1,120 @@
+package com.opencellsoft.plugin.tests.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.opencellsoft.utils.OrderedTasks;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Test;
+
+public class OrderedTasksTest {
+
+    private static class RecordingLog extends SystemStreamLog {
+        private final List<String> lines = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void info(CharSequence content) {
+            lines.add(content.toString());
+        }
+    }
+
+    @Test
+    public void collectsResultsAndLogsInTheOrderOfTheInputs() throws Exception {
+        List<Integer> inputs = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            inputs.add(i);
+        }
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        RecordingLog log = new RecordingLog();
+        // the first inputs take the longest, so they complete last
+        List<String> results = OrderedTasks.run(inputs, 4, log, (i, taskLog) -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(2L * (20 - i));
+            } catch (InterruptedException ex) {
+                throw new MojoExecutionException("interrupted", ex);
+            } finally {
+                running.decrementAndGet();
+            }
+            taskLog.info("done " + i);
+            return "r" + i;
+        });
+
+        List<String> expected = new ArrayList<>();
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            expected.add("r" + i);
+            lines.add("done " + i);
+        }
+        assertEquals(expected, results);
+        assertEquals(lines, log.lines);
+        assertTrue("tasks did not run concurrently", maxRunning.get() > 1);
+        assertTrue("more tasks than threads", maxRunning.get() <= 4);
+    }
+
+    @Test
+    public void propagatesTheFailureOfATask() {
+        try {
+            OrderedTasks.run(Arrays.asList(1, 2, 3), 2, new RecordingLog(), (i, log) -> {
+                if (i == 2) {
+                    throw new MojoExecutionException("failed " + i);
+                }
+                return i;
+            });
+            fail("expected a failure");
+        } catch (MojoExecutionException ex) {
+            assertEquals("failed 2", ex.getMessage());
+        }
+        try {
+            OrderedTasks.run(Arrays.asList(1, 2, 3), 2, new RecordingLog(), (i, log) -> {
+                throw new IllegalStateException("broken");
+            });
+            fail("expected a failure");
+        } catch (MojoExecutionException ex) {
+            assertTrue(ex.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void interruptsTheTasksWhenTheCallerIsInterrupted() throws Exception {
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch interrupted = new CountDownLatch(2);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread caller = new Thread(() -> {
+            try {
+                OrderedTasks.run(Arrays.asList(1, 2), 2, new RecordingLog(), (i, log) -> {
+                    started.countDown();
+                    try {
+                        Thread.sleep(60000);
+                    } catch (InterruptedException ex) {
+                        interrupted.countDown();
+                    }
+                    return i;
+                });
+            } catch (Throwable ex) {
+                failure.set(ex);
+            }
+        });
+        caller.start();
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        caller.interrupt();
+        caller.join(10000);
+
+        assertTrue(failure.get() instanceof MojoExecutionException);
+        assertEquals("Interrupted while processing files", failure.get().getMessage());
+        assertTrue("the running tasks were not interrupted", interrupted.await(10, TimeUnit.SECONDS));
+    }
+}
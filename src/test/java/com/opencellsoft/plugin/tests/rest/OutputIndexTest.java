@@ -0,0 +1,72 @@
+package com.opencellsoft.plugin.tests.rest;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import com.opencellsoft.utils.OutputIndex;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.Test;
+
+public class OutputIndexTest {
+
+    @Test
+    public void collectsOnlyTheStaleScriptsOfTheOwner() throws Exception {
+        File outDir = Files.createTempDirectory("scripts").toFile();
+        try {
+            File a = new File("src/a/A.java");
+            File b = new File("src/a/B.java");
+            File c = new File("src/a/C.java");
+            File other = new File("src/b/Other.java");
+
+            OutputIndex index = OutputIndex.load(outDir, Collections.singletonList("src/a"));
+            index.put(a, new File(outDir, "p.A.json"));
+            index.put(b, new File(outDir, "p.B.json"));
+            index.put(c, new File(outDir, "p.C.json"));
+            assertEquals(Collections.<File> emptyList(), index.collect(Arrays.asList(a, b, c)));
+            index.save();
+
+            OutputIndex module = OutputIndex.load(outDir, Collections.singletonList("src/b"));
+            module.put(other, new File(outDir, "p.C.json"));
+            module.save();
+
+            // A renamed, B removed, C removed but also generated by the other module
+            index = OutputIndex.load(outDir, Collections.singletonList("src/a"));
+            index.put(a, new File(outDir, "p.Renamed.json"));
+            assertEquals(Arrays.asList(new File(outDir, "p.A.json"), new File(outDir, "p.B.json")), index.collect(Collections.singletonList(a)));
+            index.save();
+
+            index = OutputIndex.load(outDir, Collections.singletonList("src/a"));
+            assertEquals(Collections.singletonList(new File(outDir, "p.Renamed.json")), index.collect(Collections.<File> emptyList()));
+        } finally {
+            FileUtils.deleteDirectory(outDir);
+        }
+    }
+
+    @Test
+    public void partialConversionKeepsThePreviousScripts() throws Exception {
+        File outDir = Files.createTempDirectory("scripts").toFile();
+        try {
+            File a = new File("src/A.java");
+            File b = new File("src/B.java");
+            OutputIndex index = OutputIndex.load(outDir, Collections.singletonList("src"));
+            index.put(a, new File(outDir, "A.json"));
+            index.put(b, new File(outDir, "B.json"));
+            index.save();
+
+            index = OutputIndex.load(outDir, Collections.singletonList("src"));
+            index.put(a, new File(outDir, "A.json"));
+            index.retainPrevious();
+            index.save();
+
+            index = OutputIndex.load(outDir, Collections.singletonList("src"));
+            assertEquals(Collections.singletonList(new File(outDir, "B.json")), index.collect(Collections.singletonList(a)));
+        } finally {
+            FileUtils.deleteDirectory(outDir);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.opencellsoft.plugin.tests.rest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.ws.rs.core.MediaType;
+
+import com.opencellsoft.plugin.RestPlugin;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A local server recording the requests it receives, decoding the compressed
+ * bodies, and answering each path with a configured status.
+ */
+class RecordingServer implements AutoCloseable {
+
+    static final String RESOURCE = "/opencell/api/rest/scriptInstance/createOrUpdate";
+
+    static final class Request {
+        final String method;
+        final String path;
+        final String contentEncoding;
+        final String authorization;
+        final String connection;
+        final String body;
+
+        private Request(String method, String path, String contentEncoding, String authorization, String connection, String body) {
+            this.method = method;
+            this.path = path;
+            this.contentEncoding = contentEncoding;
+            this.authorization = authorization;
+            this.connection = connection;
+            this.body = body;
+        }
+    }
+
+    private final HttpServer server;
+    private final List<Request> requests = Collections.synchronizedList(new ArrayList<>());
+    private final Map<String, Integer> statuses = new HashMap<>();
+
+    RecordingServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            InputStream in = exchange.getRequestBody();
+            String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+            if ("gzip".equals(encoding)) {
+                in = new GZIPInputStream(in);
+            } else if ("deflate".equals(encoding)) {
+                in = new InflaterInputStream(in);
+            }
+            String path = exchange.getRequestURI().getPath();
+            String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            String connection = exchange.getRequestHeaders().getFirst("Connection");
+            requests.add(new Request(exchange.getRequestMethod(), path, encoding, authorization, connection,
+                    new String(readAll(in), StandardCharsets.UTF_8)));
+            int status = getStatus(path);
+            byte[] out = ("{\"status\":\"" + (status / 100 == 2 ? "SUCCESS" : "FAIL") + "\"}").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, out.length);
+            exchange.getResponseBody().write(out);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private synchronized int getStatus(String path) {
+        for (Map.Entry<String, Integer> entry : statuses.entrySet()) {
+            if (path.startsWith(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return 200;
+    }
+
+    /**
+     * Answer the requests whose path starts with the prefix with the status.
+     */
+    synchronized void answer(String prefix, int status) {
+        statuses.put(prefix, status);
+    }
+
+    URI getUri() {
+        return URI.create("http://localhost:" + server.getAddress().getPort());
+    }
+
+    List<Request> getRequests() {
+        synchronized (requests) {
+            return new ArrayList<>(requests);
+        }
+    }
+
+    /**
+     * @return the bodies received on the path, sorted
+     */
+    List<String> getBodies(String path) {
+        List<String> bodies = new ArrayList<>();
+        for (Request request : getRequests()) {
+            if (request.path.equals(path)) {
+                bodies.add(request.body);
+            }
+        }
+        Collections.sort(bodies);
+        return bodies;
+    }
+
+    /**
+     * @return a plugin converting the java files of the input dir and
+     *         deploying them to the server, with its state in the work dir
+     */
+    RestPlugin newPlugin(File work, File inputDir) {
+        RestPlugin plugin = new RestPlugin();
+        plugin.setEndpoint(getUri());
+        plugin.setResource(RESOURCE);
+        plugin.setInputDir(inputDir.getAbsolutePath());
+        plugin.setOutputDir(new File(work, "scripts"));
+        plugin.setSaveResponse(Boolean.FALSE);
+        plugin.setRequestType(MediaType.APPLICATION_JSON_TYPE);
+        plugin.setHeaders(new HashMap<>(Collections.singletonMap("Authorization", "Basic xx")));
+        plugin.setReportDir(new File(work, "rest-reports"));
+        plugin.setJournalFile(new File(work, "journal.log"));
+        plugin.setManifestFile(new File(work, "manifest.json"));
+        plugin.setInMemory(true);
+        return plugin;
+    }
+
+    /**
+     * Write java sources <code>org.test.pN.ScriptI</code> into the dir.
+     */
+    static void writeSources(File dir, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            File pkg = new File(dir, "org/test/p" + (i % 3));
+            pkg.mkdirs();
+            StringBuilder source = new StringBuilder();
+            source.append("package org.test.p").append(i % 3).append(";\n\n");
+            source.append("/**\n * Script number ").append(i).append(".\n */\n");
+            source.append("public class Script").append(i).append(" {\n");
+            // sources of different sizes, so they are not converted in order
+            for (int j = 0; j < (count - i) * 20; j++) {
+                source.append("    // line ").append(j).append('\n');
+            }
+            source.append("}\n");
+            Files.write(new File(pkg, "Script" + i + ".java").toPath(), source.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,48 @@
+package com.opencellsoft.plugin.tests.rest;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import com.opencellsoft.utils.ResponseBodies;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+public class ResponseBodiesTest {
+
+    @Test
+    public void readIsBounded() throws Exception {
+        InputStream body = new ByteArrayInputStream("0123456789".getBytes(StandardCharsets.UTF_8));
+        assertEquals("0123... (truncated)", ResponseBodies.read(body, 4));
+        body = new ByteArrayInputStream("0123".getBytes(StandardCharsets.UTF_8));
+        assertEquals("0123", ResponseBodies.read(body, 4));
+    }
+
+    @Test
+    public void saveStreamsWholeBody() throws Exception {
+        byte[] content = new byte[200 * 1024];
+        Arrays.fill(content, (byte) 'x');
+        File file = File.createTempFile("response", ".tmp");
+        try {
+            ResponseBodies.Capture capture = new ResponseBodies.Capture(new ByteArrayInputStream(content), 3);
+            assertEquals(content.length, ResponseBodies.save(capture, file, false));
+            assertArrayEquals(content, Files.readAllBytes(file.toPath()));
+            assertEquals("xxx... (truncated)", capture.getText());
+
+            assertEquals(content.length, ResponseBodies.save(new ByteArrayInputStream(content), file, true));
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(file.toPath()))) {
+                assertArrayEquals(content, IOUtils.toByteArray(in));
+            }
+        } finally {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+}
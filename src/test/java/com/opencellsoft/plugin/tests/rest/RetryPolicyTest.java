@@ -0,0 +1,85 @@
+package com.opencellsoft.plugin.tests.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+import com.opencellsoft.utils.CircuitBreaker;
+import com.opencellsoft.utils.RetryPolicy;
+
+import org.junit.Test;
+
+public class RetryPolicyTest {
+
+    private static class ManualClockBreaker extends CircuitBreaker {
+        private long time;
+
+        ManualClockBreaker(int threshold, long openTime) {
+            super(threshold, openTime);
+        }
+
+        @Override
+        protected long now() {
+            return time;
+        }
+    }
+
+    @Test
+    public void retriesConfiguredStatusesOnly() {
+        RetryPolicy policy = new RetryPolicy(2, Arrays.asList(503, 429), 100, 1000);
+        assertTrue(policy.isRetryable(503));
+        assertFalse(policy.isRetryable(500));
+        assertTrue(policy.canRetry(2));
+        assertFalse(policy.canRetry(3));
+    }
+
+    @Test
+    public void backoffIsJitteredAndCapped() {
+        RetryPolicy policy = new RetryPolicy(10, null, 100, 1000);
+        for (int i = 0; i < 100; i++) {
+            long first = policy.backoff(1, null);
+            assertTrue(first >= 50 && first <= 100);
+            long third = policy.backoff(3, null);
+            assertTrue(third >= 200 && third <= 400);
+            long tenth = policy.backoff(10, null);
+            assertTrue(tenth >= 500 && tenth <= 1000);
+        }
+    }
+
+    @Test
+    public void retryAfterTakesPrecedence() {
+        RetryPolicy policy = new RetryPolicy(3, null, 100, 5000);
+        assertEquals(2000, policy.backoff(1, "2"));
+        assertEquals(5000, policy.backoff(1, "120"));
+        String date = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(60));
+        assertEquals(5000, policy.backoff(1, date));
+        assertEquals(-1, RetryPolicy.parseRetryAfter("soon"));
+    }
+
+    @Test
+    public void circuitOpensAndRecovers() {
+        ManualClockBreaker breaker = new ManualClockBreaker(2, 1000);
+        breaker.recordFailure();
+        assertTrue(breaker.allowRequest());
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+
+        breaker.time = 1000;
+        assertTrue(breaker.allowRequest());
+        assertFalse(breaker.allowRequest());
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        breaker.time = 2000;
+        assertTrue(breaker.allowRequest());
+        breaker.recordSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowRequest());
+    }
+}
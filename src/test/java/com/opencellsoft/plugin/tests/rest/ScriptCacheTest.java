@@ -0,0 +1,118 @@
+package com.opencellsoft.plugin.tests.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.opencellsoft.dto.ScriptInstance;
+import com.opencellsoft.utils.GitMetadataService;
+import com.opencellsoft.utils.ScriptCache;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.Test;
+
+public class ScriptCacheTest {
+
+    private static ScriptInstance script(String code) {
+        ScriptInstance script = new ScriptInstance();
+        script.setCode(code);
+        script.setDescription("desc");
+        script.setScript("class A {}");
+        return script;
+    }
+
+    @Test
+    public void keysDependOnEveryInput() {
+        byte[] source = "class A {}".getBytes(StandardCharsets.UTF_8);
+        String key = ScriptCache.key("1.0", "abc", source);
+        assertEquals(key, ScriptCache.key("1.0", "abc", source.clone()));
+        assertNotEquals(key, ScriptCache.key("1.1", "abc", source));
+        assertNotEquals(key, ScriptCache.key("1.0", "abd", source));
+        assertNotEquals(key, ScriptCache.key("1.0", null, source));
+        assertNotEquals(key, ScriptCache.key("1.0", "abc", "class B {}".getBytes(StandardCharsets.UTF_8)));
+        assertNotEquals(ScriptCache.key("a", "bc", source), ScriptCache.key("ab", "c", source));
+    }
+
+    @Test
+    public void getsThePutScripts() throws Exception {
+        File dir = Files.createTempDirectory("script-cache").toFile();
+        try {
+            ScriptCache cache = new ScriptCache(dir, 1024 * 1024);
+            String key = ScriptCache.key("1.0", null, new byte[] { 1 });
+            assertFalse(cache.contains(key));
+            assertNull(cache.get(key));
+
+            cache.put(key, script("org.A"));
+            assertTrue(cache.contains(key));
+            ScriptInstance cached = new ScriptCache(dir, 1024 * 1024).get(key);
+            assertEquals("org.A", cached.getCode());
+            assertEquals("desc", cached.getDescription());
+            assertEquals("class A {}", cached.getScript());
+            assertEquals(1, cache.getMisses());
+        } finally {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+
+    @Test
+    public void getsThePutLastCommits() throws Exception {
+        File dir = Files.createTempDirectory("script-cache").toFile();
+        try {
+            ScriptCache cache = new ScriptCache(dir, 1024 * 1024);
+            assertNull(cache.getLastCommits("c1"));
+
+            Map<String, GitMetadataService.CommitInfo> commits = new HashMap<>();
+            commits.put("src/A.java", new GitMetadataService.CommitInfo("c0", "someone", 1500000000));
+            commits.put("src/Untracked.java", new GitMetadataService.CommitInfo(null, null, 0));
+            cache.putLastCommits("c1", commits);
+            assertNull(cache.getLastCommits("c2"));
+
+            Map<String, GitMetadataService.CommitInfo> cached = new ScriptCache(dir, 1024 * 1024).getLastCommits("c1");
+            assertEquals(commits.keySet(), cached.keySet());
+            assertEquals("c0", cached.get("src/A.java").getId());
+            assertEquals("someone", cached.get("src/A.java").getAuthor());
+            assertEquals(1500000000, cached.get("src/A.java").getCommitTime());
+            assertNull(cached.get("src/Untracked.java").getId());
+        } finally {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+
+    @Test
+    public void evictsTheLeastRecentlyUsedScripts() throws Exception {
+        File dir = Files.createTempDirectory("script-cache").toFile();
+        try {
+            ScriptCache unbounded = new ScriptCache(dir, Long.MAX_VALUE);
+            String[] keys = new String[3];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = ScriptCache.key("1.0", null, new byte[] { (byte) i });
+                unbounded.put(keys[i], script("org.A" + i));
+                // the oldest script first
+                new File(new File(dir, keys[i].substring(0, 2)), keys[i] + ".json").setLastModified(1000000000000L + i * 1000L);
+            }
+            assertEquals(0, unbounded.evict());
+            long size = new File(new File(dir, keys[0].substring(0, 2)), keys[0] + ".json").length();
+
+            // reading the oldest script makes it the most recently used
+            assertEquals("org.A0", unbounded.get(keys[0]).getCode());
+            assertEquals(1, new ScriptCache(dir, size * 2).evict());
+            assertTrue(cacheHas(dir, keys[0]));
+            assertFalse(cacheHas(dir, keys[1]));
+            assertTrue(cacheHas(dir, keys[2]));
+        } finally {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+
+    private static boolean cacheHas(File dir, String key) {
+        return new ScriptCache(dir, Long.MAX_VALUE).contains(key);
+    }
+}
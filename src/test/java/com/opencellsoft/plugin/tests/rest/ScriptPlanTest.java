@@ -0,0 +1,53 @@
+package com.opencellsoft.plugin.tests.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.nio.charset.StandardCharsets;
+
+import com.opencellsoft.dto.ScriptInstance;
+import com.opencellsoft.utils.ScriptPlan;
+import com.opencellsoft.utils.ScriptPlan.Action;
+
+import org.junit.Test;
+
+public class ScriptPlanTest {
+
+    private static ScriptInstance script(String code, String description, String source) {
+        ScriptInstance script = new ScriptInstance();
+        script.setCode(code);
+        script.setDescription(description);
+        script.setScript(source);
+        return script;
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void comparesWithTheServerScript() throws Exception {
+        ScriptInstance local = script("org.A", "desc", "class A {}");
+
+        assertEquals(Action.CREATE, ScriptPlan.compare(local, 404, new byte[0]));
+        assertEquals(Action.CREATE, ScriptPlan.compare(local, 200, bytes("{\"actionStatus\":{\"status\":\"FAIL\"}}")));
+        assertEquals(Action.UNCHANGED, ScriptPlan.compare(local, 200,
+                bytes("{\"actionStatus\":{\"status\":\"SUCCESS\"},\"scriptInstance\":{\"code\":\"org.A\",\"description\":\"desc\",\"type\":\"JAVA\","
+                        + "\"script\":\"class A {}\",\"executionRoles\":[]}}")));
+        assertEquals(Action.UPDATE, ScriptPlan.compare(local, 200,
+                bytes("{\"scriptInstance\":{\"code\":\"org.A\",\"description\":\"desc\",\"type\":\"JAVA\",\"script\":\"class A { }\"}}")));
+        assertEquals(Action.UPDATE, ScriptPlan.compare(local, 200, bytes("{\"code\":\"org.A\",\"description\":\"other\",\"script\":\"class A {}\"}")));
+    }
+
+    @Test
+    public void hashCoversEveryField() {
+        assertEquals(ScriptPlan.hash(script("a", null, "x")), ScriptPlan.hash(script("b", "", "x")));
+        assertEquals(false, ScriptPlan.hash(script("a", "xy", "")).equals(ScriptPlan.hash(script("a", "x", "y"))));
+    }
+
+    @Test
+    public void readsLocalScripts() throws Exception {
+        assertEquals("org.A", ScriptPlan.readLocal(bytes("{\"code\":\"org.A\",\"script\":\"class A {}\"}")).getCode());
+        assertNull(ScriptPlan.readLocal(bytes("{\"name\":\"not a script\"}")));
+    }
+}
@@ -0,0 +1,105 @@
+package com.opencellsoft.plugin.tests.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import com.opencellsoft.utils.SourceMetadata;
+import com.opencellsoft.utils.SourceMetadataExtractor;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+public class SourceMetadataExtractorTest {
+
+    private static SourceMetadata extract(String name) throws IOException {
+        try (InputStream in = SourceMetadataExtractorTest.class.getResourceAsStream("/unit/sources/" + name + ".java")) {
+            return SourceMetadataExtractor.extract(IOUtils.toString(in, "UTF-8"));
+        }
+    }
+
+    @Test
+    public void plainClass() throws Exception {
+        SourceMetadata metadata = extract("PlainScript");
+        assertEquals("org.meveo.service.script.PlainScript", metadata.getFullClassName());
+        assertEquals("Delete the customers of the current provider.", metadata.getJavadoc());
+    }
+
+    @Test
+    public void finalGenericClassWithAnnotations() throws Exception {
+        SourceMetadata metadata = extract("GenericFinalScript");
+        assertEquals("com.opencellsoft.service.notif", metadata.getPackageName());
+        assertEquals("GenericFinalScript", metadata.getTypeName());
+        // the slashes are removed, as by the regex based conversion
+        assertEquals("A generic script. <p> See https:opencellsoft.comdocs for details. @param <T> the item type", metadata.getJavadoc());
+    }
+
+    @Test
+    public void abstractClass() throws Exception {
+        SourceMetadata metadata = extract("AbstractScript");
+        assertEquals("org.meveo.script.AbstractScript", metadata.getFullClassName());
+        assertEquals("Base class of the scripts.", metadata.getJavadoc());
+    }
+
+    @Test
+    public void record() throws Exception {
+        SourceMetadata metadata = extract("PointRecord");
+        assertEquals("org.meveo.model.PointRecord", metadata.getFullClassName());
+        assertEquals("A point, as a record.", metadata.getJavadoc());
+    }
+
+    @Test
+    public void annotationType() throws Exception {
+        SourceMetadata metadata = extract("MarkerAnnotation");
+        assertEquals("org.meveo.annotation.MarkerAnnotation", metadata.getFullClassName());
+        assertEquals("Mark a script as transactional.", metadata.getJavadoc());
+    }
+
+    @Test
+    public void publicTypeAfterPackagePrivateTypes() throws Exception {
+        SourceMetadata metadata = extract("DefaultPackage");
+        assertEquals("", metadata.getPackageName());
+        assertEquals("DefaultPackage", metadata.getFullClassName());
+        assertEquals("The public type of the file.", metadata.getJavadoc());
+    }
+
+    @Test
+    public void importsAndIdentifiers() throws Exception {
+        SourceMetadata metadata = extract("PlainScript");
+        assertEquals(Arrays.asList("java.util.Map", "org.meveo.admin.exception.BusinessException"), metadata.getImports());
+        assertTrue(metadata.getIdentifiers().containsAll(Arrays.asList("Script", "Override", "Map", "BusinessException", "context")));
+        assertFalse("the package is not an identifier", metadata.getIdentifiers().contains("meveo"));
+
+        metadata = SourceMetadataExtractor.extract("import static a.B.C;\nimport d.*;\n/** doc */\npublic class E { String s = \"F\"; } class G { H h; }\n");
+        assertEquals(Arrays.asList("a.B.C", "d.*"), metadata.getImports());
+        assertEquals("E", metadata.getTypeName());
+        assertFalse("string literals are skipped", metadata.getIdentifiers().contains("F"));
+        assertTrue("the whole source is scanned", metadata.getIdentifiers().contains("H"));
+
+        metadata = SourceMetadataExtractor.extract("package a;\nimport d.*;\n/** doc */\npublic class E { H h; }\n", false);
+        assertEquals("a.E", metadata.getFullClassName());
+        assertEquals("doc", metadata.getJavadoc());
+        assertTrue("no dependencies are collected", metadata.getImports().isEmpty());
+        assertTrue("no dependencies are collected", metadata.getIdentifiers().isEmpty());
+    }
+
+    @Test
+    public void keepsTheDescriptionsOfTheRegexBasedConversion() {
+        String source = "package a;\n\n/**\n * Apply the discounts.\n *\n * See the <b>*bold*</b> 2 * 3\n * @author x\n */\npublic class Discount {}\n";
+        String description = "Apply the discounts. See the <b>*bold*<b> 2 3 @author x";
+        assertEquals(description, SourceMetadataExtractor.extract(source).getJavadoc());
+        assertEquals(description, SourceMetadataExtractor.extract(source.replace("\n", "\r\n")).getJavadoc());
+        assertEquals("One line.", SourceMetadataExtractor.extract("package a;\n/** One line. */\npublic class B {}").getJavadoc());
+    }
+
+    @Test
+    public void noJavadoc() {
+        SourceMetadata metadata = SourceMetadataExtractor.extract("package a.b;\nclass C {}\n");
+        assertEquals("a.b.C", metadata.getFullClassName());
+        assertEquals("", metadata.getJavadoc());
+    }
+}
@@ -0,0 +1,40 @@
+package com.opencellsoft.plugin.tests.rest;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import com.opencellsoft.utils.SourceWatcher;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.Test;
+
+public class SourceWatcherTest {
+
+    @Test(timeout = 30000)
+    public void debouncesChangedJavaFiles() throws Exception {
+        Path dir = Files.createTempDirectory("watch");
+        try (SourceWatcher watcher = new SourceWatcher(Collections.singletonList(dir.toFile()), Collections.<File> emptyList(), 200)) {
+            Path a = dir.resolve("A.java");
+            Files.write(a, "class A {}".getBytes());
+            Files.write(a, "class A { }".getBytes());
+            Files.write(dir.resolve("notes.txt"), "not a source".getBytes());
+            Path pkg = Files.createDirectories(dir.resolve("pkg"));
+            Path b = pkg.resolve("B.java");
+            Files.write(b, "class B {}".getBytes());
+
+            assertEquals(new HashSet<>(Arrays.asList(a.toFile(), b.toFile())), new HashSet<>(watcher.take()));
+
+            Path c = pkg.resolve("C.java");
+            Files.write(c, "class C {}".getBytes());
+            assertEquals(Collections.singletonList(c.toFile()), watcher.take());
+        } finally {
+            FileUtils.deleteDirectory(dir.toFile());
+        }
+    }
+}
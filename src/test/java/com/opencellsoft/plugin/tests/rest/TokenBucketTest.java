@@ -0,0 +1,49 @@
+package com.opencellsoft.plugin.tests.rest;
+
+import static org.junit.Assert.assertEquals;
+
+import com.opencellsoft.utils.TokenBucket;
+
+import org.junit.Test;
+
+public class TokenBucketTest {
+
+    private static final long SECOND = 1000000000L;
+
+    private static class ManualClockBucket extends TokenBucket {
+        private long time;
+
+        ManualClockBucket(double rate, double capacity) {
+            super(rate, capacity);
+        }
+
+        @Override
+        protected long now() {
+            return time;
+        }
+    }
+
+    @Test
+    public void burstThenRate() {
+        ManualClockBucket bucket = new ManualClockBucket(10, 10);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, bucket.reserve(1));
+        }
+        assertEquals(SECOND / 10, bucket.reserve(1));
+        assertEquals(2 * SECOND / 10, bucket.reserve(1));
+
+        bucket.time = SECOND;
+        assertEquals("refilled, debt paid back", 0, bucket.reserve(7));
+        assertEquals(0, bucket.reserve(1));
+        assertEquals(SECOND / 10, bucket.reserve(1));
+    }
+
+    @Test
+    public void biggerThanCapacityWaitsForTheRate() {
+        ManualClockBucket bucket = new ManualClockBucket(1000, 1000);
+        assertEquals(2 * SECOND, bucket.reserve(3000));
+        bucket.time = 10 * SECOND;
+        assertEquals("capacity caps the refill", 0, bucket.reserve(1000));
+        assertEquals(SECOND / 1000, bucket.reserve(1));
+    }
+}
@@ -0,0 +1,11 @@
+/**
+ * Javadoc of the package, not of the type.
+ */
+package org.meveo.script;
+
+/**
+ * Base class of the scripts.
+ **/
+public abstract
+class AbstractScript implements Runnable {
+}
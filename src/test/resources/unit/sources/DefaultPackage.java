@@ -0,0 +1,15 @@
+import java.util.function.Supplier;
+
+/**
+ * Helper, not public.
+ */
+class Helper {
+}
+
+enum Mode { ON, OFF }
+
+/**
+ * The public type of the file.
+ */
+public interface DefaultPackage extends Supplier<String> {
+}
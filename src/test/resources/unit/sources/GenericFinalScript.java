@@ -0,0 +1,32 @@
+/*
+ * Licensed under the Apache License, Version 2.0.
+ * public class LicenseHeader is not a type
+ */
+package   com.opencellsoft.service.
+    notif ;
+
+import java.util.List;
+import java.util.Map;
+
+// public class CommentedOut {}
+
+/**
+ * A generic script.
+ * <p>
+ * See https://opencellsoft.com/docs for details.
+ *
+ * @param <T> the item type
+ */
+@SuppressWarnings({"unchecked", "rawtypes"})
+@Deprecated
+public final class GenericFinalScript<T extends Map<String, List<?>>> extends Script implements Comparable<T> {
+
+    private static final String FAKE = "public class FakeInString {";
+
+    private static final char BRACE = '{';
+
+    @Override
+    public int compareTo(T other) {
+        return 0;
+    }
+}
@@ -0,0 +1,12 @@
+package org.meveo.annotation;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Mark a script as transactional.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+public @interface MarkerAnnotation {
+    String value() default "{";
+}
@@ -0,0 +1,16 @@
+package org.meveo.service.script;
+
+import java.util.Map;
+
+import org.meveo.admin.exception.BusinessException;
+
+/**
+ * Delete the customers
+ * of the current provider.
+ */
+public class PlainScript extends Script {
+
+    @Override
+    public void execute(Map<String, Object> context) throws BusinessException {
+    }
+}
@@ -0,0 +1,15 @@
+package org.meveo.model;
+
+import java.io.Serializable;
+
+/** A point, as a record. */
+public record PointRecord(int x, int y) implements Serializable {
+
+    public PointRecord {
+        if (x < 0) {
+            throw new IllegalArgumentException("""
+                class InTextBlock { "quoted" }
+                """);
+        }
+    }
+}